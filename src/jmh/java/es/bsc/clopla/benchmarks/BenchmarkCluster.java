@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package es.bsc.clopla.benchmarks;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.PlacementContext;
+import es.bsc.clopla.domain.Vm;
+import es.bsc.clopla.modellers.CachedEnergyModeller;
+import es.bsc.clopla.modellers.EnergyModeller;
+import es.bsc.clopla.modellers.PriceModeller;
+import org.optaplanner.core.impl.score.director.incremental.IncrementalScoreCalculator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Randomly generated cluster used by the benchmarks.
+ * The cluster has a host for every 10 VMs, and 20% of the hosts are initially off. Each VM belongs to an application
+ * with around 5 VMs. The cluster is always generated with the same seed, so all the benchmarks measure the same
+ * clusters.
+ *
+ * The VMs are moved like in a local search: each VM is moved to the next host and then back to its initial host,
+ * so the states repeat and the cache of the energy modeller gets hits.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+class BenchmarkCluster {
+
+    private static final int VMS_PER_HOST = 10;
+    private static final long SEED = 42;
+
+    private static final EnergyModeller energyModeller = new EnergyModeller() {
+        @Override
+        public double getPowerConsumption(Host host, List<Vm> vmsDeployedInHost) {
+            double result = 100;
+            for (int i = 0; i < vmsDeployedInHost.size(); ++i) {
+                result += 5*vmsDeployedInHost.get(i).getNcpus();
+            }
+            return result;
+        }
+    };
+
+    private static final PriceModeller priceModeller = new PriceModeller() {
+        @Override
+        public double getCost(Host host, List<Vm> vmsDeployedInHost) {
+            return host.getNcpus() + vmsDeployedInHost.size();
+        }
+    };
+
+    private final ClusterState clusterState;
+    private final List<Vm> vms;
+    private final List<Host> hosts;
+    private final int[] initialHostIndexes;
+    private int step = 0;
+
+    public BenchmarkCluster(int vmsCount) {
+        Random random = new Random(SEED);
+        int hostsCount = Math.max(1, vmsCount/VMS_PER_HOST);
+        int onHostsCount = Math.max(1, hostsCount - hostsCount/5);
+
+        hosts = new ArrayList<>();
+        for (int i = 0; i < hostsCount; ++i) {
+            hosts.add(new Host((long) i, Integer.toString(i), 48, 65536, 640, i >= onHostsCount));
+        }
+
+        vms = new ArrayList<>();
+        List<Vm> initialVms = new ArrayList<>();
+        initialHostIndexes = new int[vmsCount];
+        int appsCount = Math.max(1, vmsCount/5);
+        for (int i = 0; i < vmsCount; ++i) {
+            Vm vm = new Vm.Builder((long) i, 1 + random.nextInt(4), 1024*(1 + random.nextInt(4)),
+                    10*(1 + random.nextInt(4))).appId("app" + random.nextInt(appsCount)).build();
+            initialHostIndexes[i] = random.nextInt(onHostsCount);
+            vm.setHost(hosts.get(initialHostIndexes[i]));
+            vms.add(vm);
+            initialVms.add(vm.copy());
+        }
+
+        ClusterState initialClusterState = new ClusterState();
+        initialClusterState.setHosts(hosts);
+        initialClusterState.setVms(initialVms);
+        clusterState = new ClusterState();
+        clusterState.setHosts(hosts);
+        clusterState.setVms(vms);
+        clusterState.setPlacementContext(new PlacementContext(
+                new CachedEnergyModeller(energyModeller), priceModeller, initialClusterState));
+    }
+
+    public ClusterState getClusterState() {
+        return clusterState;
+    }
+
+    public ClusterState getInitialClusterState() {
+        return clusterState.getPlacementContext().getInitialClusterState();
+    }
+
+    /**
+     * Moves the next VM.
+     */
+    public void moveNextVm() {
+        moveNextVm(null);
+    }
+
+    /**
+     * Moves the next VM and notifies the move to an incremental score calculator.
+     *
+     * @param scoreCalculator the score calculator to notify. It can be null.
+     */
+    public void moveNextVm(IncrementalScoreCalculator<ClusterState> scoreCalculator) {
+        int vmIndex = (step/2) % vms.size();
+        int hostIndex = step % 2 == 1 ?
+                initialHostIndexes[vmIndex] : (initialHostIndexes[vmIndex] + 1) % hosts.size();
+        Vm vm = vms.get(vmIndex);
+        if (scoreCalculator != null) {
+            scoreCalculator.beforeVariableChanged(vm, "host");
+        }
+        vm.setHost(hosts.get(hostIndex));
+        if (scoreCalculator != null) {
+            scoreCalculator.afterVariableChanged(vm, "host");
+        }
+        ++step;
+    }
+
+}
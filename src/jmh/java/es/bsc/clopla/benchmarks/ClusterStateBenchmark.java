@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package es.bsc.clopla.benchmarks;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.HostUsage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the ClusterState helpers.
+ * Each operation moves a VM before calling the helper, as in the benchmarks of the score calculators, so the
+ * benchmarks include the cost of keeping the index of the VMs by host up to date.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClusterStateBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    public int vmsCount;
+
+    private BenchmarkCluster cluster;
+
+    @Setup
+    public void setUp() {
+        cluster = new BenchmarkCluster(vmsCount);
+    }
+
+    @Benchmark
+    public int countIdleHosts() {
+        cluster.moveNextVm();
+        return cluster.getClusterState().countIdleHosts();
+    }
+
+    @Benchmark
+    public double calculateStdDevCpuPercUsedPerHost() {
+        cluster.moveNextVm();
+        return cluster.getClusterState().calculateStdDevCpuPercUsedPerHost();
+    }
+
+    @Benchmark
+    public HostUsage getHostUsage() {
+        cluster.moveNextVm();
+        ClusterState clusterState = cluster.getClusterState();
+        return clusterState.getHostUsage(clusterState.getHosts().get(0));
+    }
+
+    @Benchmark
+    public int countVmMigrationsNeeded() {
+        cluster.moveNextVm();
+        return cluster.getClusterState().countVmMigrationsNeeded(cluster.getInitialClusterState());
+    }
+
+}
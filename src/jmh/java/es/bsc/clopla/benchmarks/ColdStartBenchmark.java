@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package es.bsc.clopla.benchmarks;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.ConstructionHeuristic;
+import es.bsc.clopla.placement.VmPlacementProblem;
+import es.bsc.clopla.placement.config.Policy;
+import es.bsc.clopla.placement.config.Termination;
+import es.bsc.clopla.placement.config.VmPlacementConfig;
+import es.bsc.clopla.placement.config.localsearch.LateAcceptance;
+import es.bsc.clopla.placement.solver.VmPlacementSolverFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.config.solver.XmlSolverFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cold-start latency of Clopla: the time that the first operation of a JVM takes, including loading
+ * the classes of OptaPlanner and building the solver configuration. Each measurement is a single call in a new JVM,
+ * so nothing is reused from the previous ones.
+ * buildSolverFromXml builds the solver like Clopla did before the configuration was built in code, from the XML
+ * file that is now in src/jmh/resources, so the two approaches are compared in the same run. firstBestSolution
+ * measures the whole first placement of a small cluster, with a local search of a single step.
+ * To run only these benchmarks:
+ *   mvn -P benchmarks test-compile exec:exec -Djmh.args=ColdStartBenchmark
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class ColdStartBenchmark {
+
+    private static final String XML_SOLVER_CONFIG = "/vmplacementSolverConfig.xml";
+    private static final int VMS_COUNT = 100;
+
+    private BenchmarkCluster cluster;
+
+    @Setup
+    public void setUp() {
+        cluster = new BenchmarkCluster(VMS_COUNT);
+    }
+
+    @Benchmark
+    public Solver buildSolverFromXml() {
+        return new XmlSolverFactory(XML_SOLVER_CONFIG).buildSolver();
+    }
+
+    @Benchmark
+    public Solver buildSolverInCode() {
+        return new VmPlacementSolverFactory(getConfig()).getSolverFactory().buildSolver();
+    }
+
+    @Benchmark
+    public ClusterState firstBestSolution() {
+        ClusterState clusterState = cluster.getClusterState();
+        return new VmPlacementProblem(clusterState.getHosts(), clusterState.getVms(), getConfig()).getBestSolution();
+    }
+
+    /**
+     * Returns the configuration of the XML file, with a local search of a single step so the first placement
+     * finishes as soon as the solver has been built and has run.
+     *
+     * @return the configuration
+     */
+    private VmPlacementConfig getConfig() {
+        return new VmPlacementConfig.Builder(Policy.CONSOLIDATION, 30, ConstructionHeuristic.FIRST_FIT_DECREASING,
+                new LateAcceptance(400), false)
+                .termination(new Termination.Builder().stepLimit(1).build())
+                .build();
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package es.bsc.clopla.benchmarks;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.placement.scorecalculators.IncrementalScoreCalculatorConsolidation;
+import es.bsc.clopla.placement.scorecalculators.IncrementalScoreCalculatorDistribution;
+import es.bsc.clopla.placement.scorecalculators.IncrementalScoreCalculatorGroupByApp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.optaplanner.core.api.score.Score;
+import org.optaplanner.core.impl.score.director.incremental.IncrementalScoreCalculator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the incremental score calculators.
+ * Each operation moves a VM, notifies the move to the score calculator, and calculates the score. The working
+ * solution is only reset once per trial, so the cost of the reset is not included.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IncrementalScoreCalculatorBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    public int vmsCount;
+
+    private BenchmarkCluster cluster;
+    private IncrementalScoreCalculatorConsolidation consolidation;
+    private IncrementalScoreCalculatorDistribution distribution;
+    private IncrementalScoreCalculatorGroupByApp groupByApp;
+
+    @Setup
+    public void setUp() {
+        cluster = new BenchmarkCluster(vmsCount);
+        consolidation = new IncrementalScoreCalculatorConsolidation();
+        consolidation.resetWorkingSolution(cluster.getClusterState());
+        distribution = new IncrementalScoreCalculatorDistribution();
+        distribution.resetWorkingSolution(cluster.getClusterState());
+        groupByApp = new IncrementalScoreCalculatorGroupByApp();
+        groupByApp.resetWorkingSolution(cluster.getClusterState());
+    }
+
+    @Benchmark
+    public Score consolidation() {
+        return moveAndCalculateScore(consolidation);
+    }
+
+    @Benchmark
+    public Score distribution() {
+        return moveAndCalculateScore(distribution);
+    }
+
+    @Benchmark
+    public Score groupByApp() {
+        return moveAndCalculateScore(groupByApp);
+    }
+
+    private Score moveAndCalculateScore(IncrementalScoreCalculator<ClusterState> scoreCalculator) {
+        cluster.moveNextVm(scoreCalculator);
+        return scoreCalculator.calculateScore();
+    }
+
+}
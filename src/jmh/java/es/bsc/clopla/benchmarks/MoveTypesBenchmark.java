@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package es.bsc.clopla.benchmarks;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.ConstructionHeuristic;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import es.bsc.clopla.placement.VmPlacementProblem;
+import es.bsc.clopla.placement.config.Policy;
+import es.bsc.clopla.placement.config.Termination;
+import es.bsc.clopla.placement.config.VmPlacementConfig;
+import es.bsc.clopla.placement.config.localsearch.LateAcceptance;
+import es.bsc.clopla.placement.config.localsearch.MoveType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares how fast the local search finds its best solution with different types of moves.
+ * The cluster is tightly packed: the VMs use almost all the CPUs of the cluster, so most single VM moves overload
+ * a host. The search stops when it has not improved its best solution for UNIMPROVED_TIME_LIMIT_MILLIS, so each
+ * measurement is the time to find the best solution plus that constant. The score of the best solution is printed
+ * after each measurement, because a set of moves that stops improving early may also find worse placements.
+ * The search is started from the same state and seed in each measurement.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MoveTypesBenchmark {
+
+    private static final int N_HOSTS = 50;
+    private static final int CPUS_PER_HOST = 16;
+    private static final int N_APPS = 40;
+    private static final long TIME_LIMIT_MILLIS = 30000;
+    private static final long UNIMPROVED_TIME_LIMIT_MILLIS = 2000;
+    private static final long SEED = 1;
+
+    // The types of moves of each set are separated by '+'
+    @Param({"CHANGE", "CHANGE+SWAP", "CHANGE+SWAP+PILLAR_SWAP", "CHANGE+SWAP+APP_CHANGE"})
+    public String moveTypes;
+
+    private VmPlacementConfig config;
+    private ClusterState bestSolution;
+
+    @Setup
+    public void setUp() {
+        String[] moveTypeNames = moveTypes.split("\\+");
+        MoveType[] moveTypesToUse = new MoveType[moveTypeNames.length];
+        for (int i = 0; i < moveTypeNames.length; ++i) {
+            moveTypesToUse[i] = MoveType.valueOf(moveTypeNames[i]);
+        }
+        config = new VmPlacementConfig.Builder(
+                Policy.GROUP_BY_APP,
+                (int) TimeUnit.MILLISECONDS.toSeconds(TIME_LIMIT_MILLIS),
+                ConstructionHeuristic.FIRST_FIT_DECREASING,
+                new LateAcceptance(400),
+                false)
+                .moveTypes(moveTypesToUse)
+                .randomSeed(SEED)
+                .termination(new Termination.Builder()
+                        .timeLimitMillis(TIME_LIMIT_MILLIS)
+                        .unimprovedTimeLimitMillis(UNIMPROVED_TIME_LIMIT_MILLIS)
+                        .build())
+                .build();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printBestScore() {
+        System.out.println(moveTypes + ": best score " + bestSolution.getScore());
+    }
+
+    @Benchmark
+    public ClusterState timeToBestSolution() {
+        bestSolution = new VmPlacementProblem(getHosts(), getVms(), config).getBestSolution();
+        return bestSolution;
+    }
+
+    private static List<Host> getHosts() {
+        List<Host> result = new ArrayList<>();
+        for (int i = 0; i < N_HOSTS; ++i) {
+            result.add(new Host((long) i, String.valueOf(i), CPUS_PER_HOST, 65536, 1000, false));
+        }
+        return result;
+    }
+
+    /**
+     * Returns VMs of random sizes until they use 95% of the CPUs of the cluster. Each VM belongs to one of the
+     * applications.
+     *
+     * @return the list of VMs
+     */
+    private static List<Vm> getVms() {
+        Random random = new Random(SEED);
+        List<Vm> result = new ArrayList<>();
+        int cpusLeft = (int) (N_HOSTS * CPUS_PER_HOST * 0.95);
+        for (long id = 0; cpusLeft > 0; ++id) {
+            int cpus = Math.min(cpusLeft, 1 + random.nextInt(4));
+            result.add(new Vm.Builder(id, cpus, 1024 * cpus, 10).appId("app" + random.nextInt(N_APPS)).build());
+            cpusLeft -= cpus;
+        }
+        return result;
+    }
+
+}
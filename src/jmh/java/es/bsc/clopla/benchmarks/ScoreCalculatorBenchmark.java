@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package es.bsc.clopla.benchmarks;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.placement.scorecalculators.ScoreCalculatorConsolidation;
+import es.bsc.clopla.placement.scorecalculators.ScoreCalculatorDistribution;
+import es.bsc.clopla.placement.scorecalculators.ScoreCalculatorEnergy;
+import es.bsc.clopla.placement.scorecalculators.ScoreCalculatorGroupByApp;
+import es.bsc.clopla.placement.scorecalculators.ScoreCalculatorPrice;
+import es.bsc.clopla.placement.scorecalculators.ScoreCalculatorRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.optaplanner.core.api.score.Score;
+import org.optaplanner.core.impl.score.director.simple.SimpleScoreCalculator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the simple score calculators.
+ * Each operation moves a VM and calculates the score of the whole cluster, as OptaPlanner does for each move
+ * evaluated during the local search.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoreCalculatorBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    public int vmsCount;
+
+    private BenchmarkCluster cluster;
+    private ScoreCalculatorConsolidation consolidation;
+    private ScoreCalculatorDistribution distribution;
+    private ScoreCalculatorGroupByApp groupByApp;
+    private ScoreCalculatorRandom random;
+    private ScoreCalculatorEnergy energy;
+    private ScoreCalculatorPrice price;
+
+    @Setup
+    public void setUp() {
+        cluster = new BenchmarkCluster(vmsCount);
+        consolidation = new ScoreCalculatorConsolidation();
+        distribution = new ScoreCalculatorDistribution();
+        groupByApp = new ScoreCalculatorGroupByApp();
+        random = new ScoreCalculatorRandom();
+        energy = new ScoreCalculatorEnergy();
+        price = new ScoreCalculatorPrice();
+    }
+
+    @Benchmark
+    public Score consolidation() {
+        return moveAndCalculateScore(consolidation);
+    }
+
+    @Benchmark
+    public Score distribution() {
+        return moveAndCalculateScore(distribution);
+    }
+
+    @Benchmark
+    public Score groupByApp() {
+        return moveAndCalculateScore(groupByApp);
+    }
+
+    @Benchmark
+    public Score random() {
+        return moveAndCalculateScore(random);
+    }
+
+    @Benchmark
+    public Score energy() {
+        return moveAndCalculateScore(energy);
+    }
+
+    @Benchmark
+    public Score price() {
+        return moveAndCalculateScore(price);
+    }
+
+    private Score moveAndCalculateScore(SimpleScoreCalculator<ClusterState> scoreCalculator) {
+        cluster.moveNextVm();
+        return scoreCalculator.calculateScore(cluster.getClusterState());
+    }
+
+}
@@ -20,6 +20,7 @@
 package es.bsc.clopla.domain;
 
 import com.thoughtworks.xstream.annotations.XStreamConverter;
+import es.bsc.clopla.domain.cloners.ClusterStateSolutionCloner;
 import org.optaplanner.core.api.domain.solution.PlanningEntityCollectionProperty;
 import org.optaplanner.core.api.domain.solution.PlanningSolution;
 import org.optaplanner.core.api.domain.value.ValueRangeProvider;
@@ -37,11 +38,17 @@ import java.util.*;
  *  
  * @author David Ortiz (david.ortiz@bsc.es)
  */
-@PlanningSolution
+@PlanningSolution(solutionCloner = ClusterStateSolutionCloner.class)
 public class ClusterState extends AbstractPersistable implements Solution<Score> {
 
-    private List<Vm> vms;
+    private static final Class<?> UNMODIFIABLE_LIST_CLASS = Collections.unmodifiableList(new ArrayList<>()).getClass();
+
+    private List<Vm> vms; // Unmodifiable, so the indexes by ID only need to be rebuilt when the lists are replaced
     private List<Host> hosts;
+    private PlacementContext placementContext; // Shared by all the clones of the state
+    private transient HostIndex hostIndex; // Built on the first per-host query, see getHostIndex()
+    private transient Map<Long, Vm> vmsById; // Built when needed, see getVmsById()
+    private transient Map<Long, Host> hostsById; // Built when needed, see getHostsById()
 
     public ClusterState () { } // OptaPlanner needs no arg constructor to clone
     
@@ -55,7 +62,7 @@ public class ClusterState extends AbstractPersistable implements Solution<Score>
      * @return true if the host is idle, false otherwise.
      */
     public boolean hostIsIdle(Host host) {
-        return getIdleHosts().contains(host);
+        return getHostIndex().isIdle(host);
     }
 
     /**
@@ -64,7 +71,14 @@ public class ClusterState extends AbstractPersistable implements Solution<Score>
      * @return the number of hosts that do not have any VMs assigned.
      */
     public int countIdleHosts() {
-        return getIdleHosts().size();
+        HostIndex hostIndex = getHostIndex();
+        int result = 0;
+        for (Host host: hosts) {
+            if (hostIndex.isIdle(host)) {
+                ++result;
+            }
+        }
+        return result;
     }
 
     /**
@@ -73,7 +87,7 @@ public class ClusterState extends AbstractPersistable implements Solution<Score>
      * @return the number of hosts that have at least one VM assigned.
      */
     public int countNonIdleHosts() {
-        return hosts.size() - getIdleHosts().size();
+        return hosts.size() - countIdleHosts();
     }
 
     /**
@@ -84,9 +98,12 @@ public class ClusterState extends AbstractPersistable implements Solution<Score>
      */
     public List<String> getIdsOfAppsDeployedInHost(Host host) {
         List<String> result = new ArrayList<>();
-        for (Vm vm: vms) {
-            if (host.equals(vm.getHost()) && vm.getAppId() != null) {
-                result.add(vm.getAppId());
+        HostVms hostVms = getHostIndex().getHostVms(host);
+        if (hostVms != null) {
+            for (Vm vm: hostVms.vms) {
+                if (vm.getAppId() != null) {
+                    result.add(vm.getAppId());
+                }
             }
         }
         return result;
@@ -99,13 +116,20 @@ public class ClusterState extends AbstractPersistable implements Solution<Score>
      * @return the list of VMs
      */
     public List<Vm> getVmsDeployedInHost(Host host) {
-        List<Vm> result = new ArrayList<>();
-        for (Vm vm: vms) {
-            if (host.equals(vm.getHost())) {
-                result.add(vm);
-            }
-        }
-        return result;
+        HostVms hostVms = getHostIndex().getHostVms(host);
+        return hostVms == null ? new ArrayList<Vm>() : new ArrayList<>(hostVms.vms);
+    }
+
+    /**
+     * Returns the resources used in a host by the VMs deployed in it.
+     *
+     * @param host the host
+     * @return the usage of the host
+     */
+    public HostUsage getHostUsage(Host host) {
+        HostVms hostVms = getHostIndex().getHostVms(host);
+        return hostVms == null ?
+                new HostUsage(0, 0, 0) : new HostUsage(hostVms.ncpusUsed, hostVms.ramMbUsed, hostVms.diskGbUsed);
     }
 
     /**
@@ -124,11 +148,7 @@ public class ClusterState extends AbstractPersistable implements Solution<Score>
      * @return the number of CPUs
      */
     public int cpusAssignedInHost(Host host) {
-        int result = 0;
-        for (Vm vm: getVmsDeployedInHost(host)) {
-            result += vm.getNcpus();
-        }
-        return result;
+        return getHostIndex().cpusAssignedInHost(host);
     }
 
     /**
@@ -161,9 +181,10 @@ public class ClusterState extends AbstractPersistable implements Solution<Score>
      * @return the number of hosts that are switched off
      */
     public int countOffHosts() {
+        HostIndex hostIndex = getHostIndex();
         int result = 0;
         for (Host host: hosts) {
-            if (host.wasOffInitiallly() && getVmsDeployedInHost(host).size() == 0) {
+            if (host.wasOffInitiallly() && hostIndex.isIdle(host)) {
                 ++result;
             }
         }
@@ -172,6 +193,7 @@ public class ClusterState extends AbstractPersistable implements Solution<Score>
 
     /**
      * Returns the number of VM migrations needed to go from this cluster state to the given one.
+     * The VMs that are not in the destiny cluster state, because they have been removed, do not need a migration.
      *  
      * @param destinyClusterState the destiny cluster state
      * @return the number of VM migrations needed
@@ -179,7 +201,8 @@ public class ClusterState extends AbstractPersistable implements Solution<Score>
     public int countVmMigrationsNeeded(ClusterState destinyClusterState) {
         int result = 0;
         for (Vm vm: vms) {
-            if (!vm.isInTheSameHost(destinyClusterState.getVmById(vm.getId()))) {
+            Vm destinyVm = destinyClusterState.getVmById(vm.getId());
+            if (destinyVm != null && !vm.isInTheSameHost(destinyVm)) {
                 ++result;
             }
         }
@@ -193,30 +216,68 @@ public class ClusterState extends AbstractPersistable implements Solution<Score>
      * @return the VM or null if it does not exist
      */
     public Vm getVmById(long id) {
-        for (Vm vm: vms) {
-            if (vm.getId() == id) {
-                return vm;
-            }
-        }
-        return null;
+        return getVmsById().get(id);
+    }
+
+    /**
+     * Gets a host by ID.
+     *
+     * @param id the host ID
+     * @return the host or null if it does not exist
+     */
+    public Host getHostById(long id) {
+        return getHostsById().get(id);
     }
     
+    /**
+     * Returns the VMs of the cluster state. The list cannot be modified. To add or remove VMs, set a new list.
+     *
+     * @return the VMs
+     */
     @PlanningEntityCollectionProperty
     public List<Vm> getVms() {
         return vms;
     }
 
+    /**
+     * Sets the VMs of the cluster state. The list should not be modified afterwards.
+     *
+     * @param vms the VMs
+     */
     public void setVms(List<Vm> vms) {
-        this.vms = vms;
+        if (this.vms != null) {
+            releaseIndexedVms();
+        }
+        this.vms = vms == null ? null : unmodifiableList(vms);
+        vmsById = null;
     }
 
+    /**
+     * Returns the hosts of the cluster state. The list cannot be modified. To add or remove hosts, set a new list.
+     *
+     * @return the hosts
+     */
     @ValueRangeProvider(id = "hostRange")
     public List<Host> getHosts() {
         return hosts;
     }
 
+    /**
+     * Sets the hosts of the cluster state. The list should not be modified afterwards.
+     *
+     * @param hosts the hosts
+     */
     public void setHosts(List<Host> hosts) {
-        this.hosts = hosts;
+        this.hosts = hosts == null ? null : unmodifiableList(hosts);
+        hostsById = null;
+    }
+
+    public PlacementContext getPlacementContext() {
+        return placementContext;
+    }
+
+    public void setPlacementContext(PlacementContext placementContext) {
+        this.placementContext = placementContext;
     }
 
     @Override
@@ -244,49 +305,125 @@ public class ClusterState extends AbstractPersistable implements Solution<Score>
         return sb.toString();
     }
 
-    private List<Host> getIdleHosts() {
-        // Initialize all hosts to idle
-        Map<Host, Boolean> idleHosts = new HashMap<>();
-        for (Host host: hosts) {
-            idleHosts.put(host, true);
+    /**
+     * Returns the VMs indexed by ID. The index does not depend on the hosts of the VMs, so it is built the first
+     * time that it is needed after setting the list of VMs.
+     *
+     * @return the map of VMs by ID
+     */
+    private Map<Long, Vm> getVmsById() {
+        if (vmsById == null) {
+            Map<Long, Vm> result = new HashMap<>();
+            for (Vm vm: vms) {
+                result.put(vm.getId(), vm);
+            }
+            vmsById = result;
         }
+        return vmsById;
+    }
 
-        // Check what hosts are not idle
-        for (Vm vm: vms) {
-            idleHosts.put(vm.getHost(), false);
+    /**
+     * Returns the hosts indexed by ID. The index is built the first time that it is needed after setting the list
+     * of hosts.
+     *
+     * @return the map of hosts by ID
+     */
+    private Map<Long, Host> getHostsById() {
+        if (hostsById == null) {
+            Map<Long, Host> result = new HashMap<>();
+            for (Host host: hosts) {
+                result.put(host.getId(), host);
+            }
+            hostsById = result;
         }
+        return hostsById;
+    }
+
+    /**
+     * Returns an unmodifiable view of a list. The lists that are already unmodifiable, like the ones returned by
+     * the getters of another cluster state, are not wrapped again, so the clones share the same list of hosts.
+     *
+     * @param list the list
+     * @return the unmodifiable list
+     */
+    private static <T> List<T> unmodifiableList(List<T> list) {
+        return list.getClass() == UNMODIFIABLE_LIST_CLASS ? list : Collections.unmodifiableList(list);
+    }
 
-        // Return result
-        List<Host> result = new ArrayList<>();
-        for (Map.Entry<Host, Boolean> idleHostsEntry: idleHosts.entrySet()) {
-            if (idleHostsEntry.getValue()) {
-                result.add(idleHostsEntry.getKey());
+    /**
+     * Updates the host index after a VM indexed by this cluster state has been assigned to a different host.
+     * It is called by Vm.setHost, which is also the method that OptaPlanner uses to change the planning variable.
+     *
+     * @param vm the VM
+     * @param previousHost the host where the VM was assigned before
+     */
+    void vmHostChanged(Vm vm, Host previousHost) {
+        if (hostIndex != null) {
+            hostIndex.remove(vm, previousHost);
+            hostIndex.add(vm, vm.getHost());
+        }
+    }
+
+    /**
+     * Returns the index of the VMs by host. It is built in one pass over the VMs the first time that it is
+     * needed, and then kept up to date by vmHostChanged() until the list of VMs changes.
+     * A VM notifies only the last cluster state that indexed it. If the VM was indexed by another cluster state
+     * before, the index of that cluster state is discarded, because it would not see the changes of the VM anymore.
+     *
+     * @return the index of the VMs by host
+     */
+    private HostIndex getHostIndex() {
+        if (hostIndex == null) {
+            HostIndex result = new HostIndex();
+            for (Vm vm: vms) {
+                ClusterState previousClusterState = vm.getIndexingClusterState();
+                if (previousClusterState != null && previousClusterState != this) {
+                    previousClusterState.hostIndex = null;
+                }
+                vm.setIndexingClusterState(this);
+                result.add(vm, vm.getHost());
             }
+            hostIndex = result;
         }
-        return result;
+        return hostIndex;
+    }
+
+    /**
+     * Discards the host index and makes the VMs that were indexed by this cluster state stop notifying it, so the
+     * VMs that are removed from the cluster state cannot modify its index anymore.
+     */
+    private void releaseIndexedVms() {
+        for (Vm vm: vms) {
+            if (vm.getIndexingClusterState() == this) {
+                vm.setIndexingClusterState(null);
+            }
+        }
+        hostIndex = null;
     }
 
     private int calculateTotalCpusAssigned() {
+        HostIndex hostIndex = getHostIndex();
         int result = 0;
         for (Host host: hosts) {
-            result += cpusAssignedInHost(host);
+            result += hostIndex.cpusAssignedInHost(host);
         }
         return result;
     }
 
     private double calculateVariaceCpuPercUsedPerHost() {
+        HostIndex hostIndex = getHostIndex();
         double temp = 0;
-        double avgCpuPercUsed = avgCpuPercUsedPerHost();
+        double avgCpuPercUsed = avgCpuPercUsedPerHost(hostIndex);
         for (Host host: hosts) {
-            temp += Math.pow(avgCpuPercUsed - (cpusAssignedInHost(host))/(host.getNcpus()/1.0), 2);
+            temp += Math.pow(avgCpuPercUsed - (hostIndex.cpusAssignedInHost(host))/(host.getNcpus()/1.0), 2);
         }
         return temp/(hosts.size());
     }
     
-    private double avgCpuPercUsedPerHost() {
+    private double avgCpuPercUsedPerHost(HostIndex hostIndex) {
         double cpuPercUsedSum = 0;
         for (Host host: hosts) {
-            cpuPercUsedSum += cpusAssignedInHost(host)/(host.getNcpus()/1.0);
+            cpuPercUsedSum += hostIndex.cpusAssignedInHost(host)/(host.getNcpus()/1.0);
         }
         return cpuPercUsedSum/hosts.size();
     }
@@ -295,5 +432,76 @@ public class ClusterState extends AbstractPersistable implements Solution<Score>
         double unusedPerc = (double)(host.getNcpus() - cpusAssignedInHost(host))/(host.getNcpus());
         return unusedPerc > 0 ? unusedPerc : 0; // If a host is overbooked simply return 0
     }
+
+    /**
+     * This class indexes the VMs of a cluster state by host, together with the resources that they use in each
+     * host. OptaPlanner 6.0.1 only supports shadow variables on chained planning variables, and the hosts are shared
+     * by the placement problems that are solved at the same time, so the index is kept in the cluster state instead
+     * of in the hosts.
+     * The score calculators do not use it, they keep their own CompactClusterState.
+     */
+    private static class HostIndex {
+
+        private final Map<Host, HostVms> vmsOfHosts = new HashMap<>();
+
+        public void add(Vm vm, Host host) {
+            if (host != null) {
+                HostVms hostVms = vmsOfHosts.get(host);
+                if (hostVms == null) {
+                    hostVms = new HostVms();
+                    vmsOfHosts.put(host, hostVms);
+                }
+                hostVms.add(vm);
+            }
+        }
+
+        public void remove(Vm vm, Host host) {
+            if (host != null) {
+                vmsOfHosts.get(host).remove(vm);
+            }
+        }
+
+        public HostVms getHostVms(Host host) {
+            return vmsOfHosts.get(host);
+        }
+
+        public boolean isIdle(Host host) {
+            HostVms hostVms = vmsOfHosts.get(host);
+            return hostVms == null || hostVms.vms.isEmpty();
+        }
+
+        public int cpusAssignedInHost(Host host) {
+            HostVms hostVms = vmsOfHosts.get(host);
+            return hostVms == null ? 0 : hostVms.ncpusUsed;
+        }
+
+    }
+
+    /**
+     * The VMs assigned to a host and the resources that they use. The entries of the hosts that become idle are
+     * kept, so moving VMs back and forth does not allocate.
+     */
+    private static class HostVms {
+
+        private final List<Vm> vms = new ArrayList<>();
+        private int ncpusUsed = 0;
+        private int ramMbUsed = 0;
+        private int diskGbUsed = 0;
+
+        public void add(Vm vm) {
+            vms.add(vm);
+            ncpusUsed += vm.getNcpus();
+            ramMbUsed += vm.getRamMb();
+            diskGbUsed += vm.getDiskGb();
+        }
+
+        public void remove(Vm vm) {
+            vms.remove(vm);
+            ncpusUsed -= vm.getNcpus();
+            ramMbUsed -= vm.getRamMb();
+            diskGbUsed -= vm.getDiskGb();
+        }
+
+    }
     
 }
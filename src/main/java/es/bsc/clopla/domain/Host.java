@@ -19,11 +19,11 @@
 
 package es.bsc.clopla.domain;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * This class describes a host where VMs can be deployed.
+ * Hosts are immutable, so the same instances can be shared by placement problems that are solved at the same time.
  *
  * @author David Ortiz (david.ortiz@bsc.es)
  */
@@ -33,7 +33,6 @@ public class Host extends AbstractPersistable {
     private final int ncpus;
     private final double ramMb;
     private final double diskGb;
-    private final List<Long> fixedVmsIds = new ArrayList<>(); // IDs of the VMs that need to be deployed in this host
     private final boolean initiallyOff; // The host was off before the planning started
 
     public Host(Long id, String hostname, int ncpus, double ramMb, double diskGb, boolean initiallyOff) {
@@ -80,31 +79,51 @@ public class Host extends AbstractPersistable {
      * @return the overcapacity score
      */
     public double getOverCapacityScore(List<Vm> vms) {
-        HostUsage hostUsage = getUsage(vms);
+        return getOverCapacityScore(getUsage(vms));
+    }
+
+    /**
+     * Returns the overcapacity score of the host given its usage.
+     * The score is calculated as in getOverCapacityScore(List<Vm>).
+     *
+     * @param hostUsage the usage of the host
+     * @return the overcapacity score
+     */
+    public double getOverCapacityScore(HostUsage hostUsage) {
         return getCpuOverCapacityScore(hostUsage)
                 + getRamOverCapacityScore(hostUsage)
                 + getDiskOverCapacityScore(hostUsage);
     }
 
     /**
-     * Checks whether all the VMs assigned to this host and marked as 'fixed' (the user indicated
-     * that they need to be deployed in this host) are assigned to this host.
-     *  
-     * @param vms the list of VMs
-     * @return False if any of the VMs that were marked as 'fixed' for this host have not been
-     * assigned to this host, true otherwise 
+     * Checks whether the raw capacity of the host can hold a VM, without taking into account the rest of VMs
+     * deployed in the host. If this function returns false, deploying the VM in the host always overloads it.
+     *
+     * @param vm the VM
+     * @return true if the host has enough CPUs, RAM, and disk for the VM, false otherwise
      */
-    public boolean missingFixedVMs(List<Vm> vms) {
-        for (long vmId: fixedVmsIds) {
-            for (Vm vm: vms) {
-                if (vm.getId().equals(vmId)) {
-                    if (vm.getHost() == null || !vm.getHost().getId().equals(id)) {
-                        return true;
-                    }
-                }
-            }
+    public boolean hasCapacityFor(Vm vm) {
+        return vm.getNcpus() <= ncpus && vm.getRamMb() <= ramMb && vm.getDiskGb() <= diskGb;
+    }
+
+    /**
+     * Checks whether the raw capacity of the host can hold a group of VMs together, without taking into account the
+     * rest of VMs deployed in the host. If this function returns false, deploying all the VMs in the host always
+     * overloads it.
+     *
+     * @param vms the VMs
+     * @return true if the host has enough CPUs, RAM, and disk for all the VMs, false otherwise
+     */
+    public boolean hasCapacityFor(List<Vm> vms) {
+        int vmsNcpus = 0;
+        int vmsRamMb = 0;
+        int vmsDiskGb = 0;
+        for (Vm vm: vms) {
+            vmsNcpus += vm.getNcpus();
+            vmsRamMb += vm.getRamMb();
+            vmsDiskGb += vm.getDiskGb();
         }
-        return false;
+        return vmsNcpus <= ncpus && vmsRamMb <= ramMb && vmsDiskGb <= diskGb;
     }
 
     public String getHostname() {
@@ -123,10 +142,6 @@ public class Host extends AbstractPersistable {
         return diskGb;
     }
 
-    public void addFixedVm(long vmId) {
-        fixedVmsIds.add(vmId);
-    }
-
     public boolean wasOffInitiallly() {
         return initiallyOff;
     }
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.domain;
+
+import es.bsc.clopla.modellers.EnergyModeller;
+import es.bsc.clopla.modellers.PriceModeller;
+
+/**
+ * This class contains the data that the score calculators need besides the cluster state being scored: the
+ * modellers of the policy and the initial state of the cluster, which is needed to count the migrations.
+ * Each placement problem creates its own context and attaches it to its cluster states, so problems solved at
+ * the same time, in the same thread or in different ones, do not interfere with each other.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class PlacementContext {
+
+    private final EnergyModeller energyModeller;
+    private final PriceModeller priceModeller;
+    private final ClusterState initialClusterState;
+
+    /**
+     * Class constructor.
+     *
+     * @param energyModeller the energy modeller. It can be null if the policy does not need it
+     * @param priceModeller the price modeller. It can be null if the policy does not need it
+     * @param initialClusterState the state of the cluster before solving the problem
+     */
+    public PlacementContext(EnergyModeller energyModeller, PriceModeller priceModeller,
+                            ClusterState initialClusterState) {
+        this.energyModeller = energyModeller;
+        this.priceModeller = priceModeller;
+        this.initialClusterState = initialClusterState;
+    }
+
+    public EnergyModeller getEnergyModeller() {
+        return energyModeller;
+    }
+
+    public PriceModeller getPriceModeller() {
+        return priceModeller;
+    }
+
+    public ClusterState getInitialClusterState() {
+        return initialClusterState;
+    }
+
+}
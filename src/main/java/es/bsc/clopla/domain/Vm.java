@@ -21,15 +21,19 @@ package es.bsc.clopla.domain;
 
 import es.bsc.clopla.domain.comparators.HostStrengthComparator;
 import es.bsc.clopla.domain.comparators.VmDifficultyComparator;
+import es.bsc.clopla.domain.filters.MovableVmSelectionFilter;
 import org.optaplanner.core.api.domain.entity.PlanningEntity;
 import org.optaplanner.core.api.domain.variable.PlanningVariable;
 
 /**
  * This class represents a virtual machine.
+ * Clopla does not modify the VMs that it receives. The placement problems work with copies of them, so the host
+ * assigned to the VMs received only describes the initial state of the cluster.
  *
  * @author David Ortiz (david.ortiz@bsc.es)
  */
-@PlanningEntity(difficultyComparatorClass = VmDifficultyComparator.class)
+@PlanningEntity(difficultyComparatorClass = VmDifficultyComparator.class,
+        movableEntitySelectionFilter = MovableVmSelectionFilter.class)
 public class Vm extends AbstractPersistable {
 
     private int ncpus;
@@ -37,8 +41,10 @@ public class Vm extends AbstractPersistable {
     private int diskGb;
     private String appId;
     private Host host; // The host where the Vm should be deployed according to the planner.
+    private boolean fixed = false; // When set to true, the planner cannot move the VM to a different host
     private String alphaNumericId; /* This might be needed in some cases. For example, OpenStack uses alphanumeric
                                    IDs, and optaplanner needs an ID of type long. */
+    private transient ClusterState indexingClusterState; // Notified when the host changes, see ClusterState
 
     public Vm() { } // OptaPlanner needs no arg constructor to clone
 
@@ -86,6 +92,21 @@ public class Vm extends AbstractPersistable {
         alphaNumericId = builder.alphaNumericId;
     }
 
+    /**
+     * Returns a copy of this VM. The copy is assigned to the same host and is fixed if this VM is fixed.
+     *
+     * @return the copy of the VM
+     */
+    public Vm copy() {
+        Vm result = new Builder(id, ncpus, ramMb, diskGb)
+                .appId(appId)
+                .alphaNumericId(alphaNumericId)
+                .build();
+        result.host = host;
+        result.setFixed(fixed);
+        return result;
+    }
+
     /**
      * Checks whether this VM is deployed in the same host as the given one.
      *
@@ -127,8 +148,28 @@ public class Vm extends AbstractPersistable {
         return host;
     }
 
+    public boolean isFixed() {
+        return fixed;
+    }
+
+    public void setFixed(boolean fixed) {
+        this.fixed = fixed;
+    }
+
     public void setHost(Host host) {
+        Host previousHost = this.host;
         this.host = host;
+        if (indexingClusterState != null) {
+            indexingClusterState.vmHostChanged(this, previousHost);
+        }
+    }
+
+    ClusterState getIndexingClusterState() {
+        return indexingClusterState;
+    }
+
+    void setIndexingClusterState(ClusterState indexingClusterState) {
+        this.indexingClusterState = indexingClusterState;
     }
 
     @Override
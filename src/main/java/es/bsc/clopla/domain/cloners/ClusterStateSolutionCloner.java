@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.domain.cloners;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Vm;
+import org.optaplanner.core.impl.solution.cloner.SolutionCloner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class clones cluster states for OptaPlanner. It is much faster than the default cloner, which uses
+ * reflection, and OptaPlanner clones the working solution each time that it finds a new best solution.
+ * Like the default cloner, it copies the VMs, because they are the planning entities, and shares the hosts, the
+ * list of hosts, and the placement context with the original, because the solver does not modify them.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class ClusterStateSolutionCloner implements SolutionCloner<ClusterState> {
+
+    @Override
+    public ClusterState cloneSolution(ClusterState original) {
+        List<Vm> vms = new ArrayList<>(original.getVms().size());
+        for (Vm vm: original.getVms()) {
+            vms.add(vm.copy());
+        }
+        ClusterState result = new ClusterState();
+        result.setVms(vms);
+        result.setHosts(original.getHosts());
+        result.setPlacementContext(original.getPlacementContext());
+        result.setScore(original.getScore());
+        return result;
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.domain.filters;
+
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import org.optaplanner.core.impl.heuristic.selector.common.decorator.SelectionFilter;
+import org.optaplanner.core.impl.heuristic.selector.move.generic.ChangeMove;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+
+/**
+ * This class filters the change moves that send a VM to a host that does not have enough CPUs, RAM, or disk for it,
+ * even when empty. Those moves always overload the host, so filtering them saves calculating their score.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class CapacityChangeMoveFilter implements SelectionFilter<ChangeMove> {
+
+    @Override
+    public boolean accept(ScoreDirector scoreDirector, ChangeMove move) {
+        Host toHost = (Host) move.getToPlanningValue();
+        return toHost == null || toHost.hasCapacityFor((Vm) move.getEntity());
+    }
+
+}
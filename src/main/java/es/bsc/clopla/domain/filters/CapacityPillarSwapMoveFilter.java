@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package es.bsc.clopla.domain.filters;
+
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import org.optaplanner.core.impl.heuristic.selector.common.decorator.SelectionFilter;
+import org.optaplanner.core.impl.heuristic.selector.move.generic.PillarSwapMove;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+
+import java.util.List;
+
+/**
+ * This class filters the pillar swap moves that send one of the two groups of VMs to a host that does not have
+ * enough CPUs, RAM, or disk for all of them, even when empty. Those moves always overload a host, so filtering them
+ * saves calculating their score.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class CapacityPillarSwapMoveFilter implements SelectionFilter<PillarSwapMove> {
+
+    @Override
+    public boolean accept(ScoreDirector scoreDirector, PillarSwapMove move) {
+        List<Vm> leftVms = toVms(move.getLeftPillar());
+        List<Vm> rightVms = toVms(move.getRightPillar());
+        return fits(leftVms, rightVms) && fits(rightVms, leftVms);
+    }
+
+    // Checks whether vms fit together in the host of otherVms. All the VMs of a pillar are in the same host.
+    private boolean fits(List<Vm> vms, List<Vm> otherVms) {
+        Host host = otherVms.get(0).getHost();
+        return host == null || host.hasCapacityFor(vms);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Vm> toVms(List<Object> pillar) {
+        return (List<Vm>) (List<?>) pillar;
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.domain.filters;
+
+import es.bsc.clopla.domain.Vm;
+import org.optaplanner.core.impl.heuristic.selector.common.decorator.SelectionFilter;
+import org.optaplanner.core.impl.heuristic.selector.move.generic.SwapMove;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+
+/**
+ * This class filters the swap moves that send one of the two VMs to a host that does not have enough CPUs, RAM, or
+ * disk for it, even when empty. Those moves always overload a host, so filtering them saves calculating their score.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class CapacitySwapMoveFilter implements SelectionFilter<SwapMove> {
+
+    @Override
+    public boolean accept(ScoreDirector scoreDirector, SwapMove move) {
+        Vm leftVm = (Vm) move.getLeftEntity();
+        Vm rightVm = (Vm) move.getRightEntity();
+        return fits(leftVm, rightVm) && fits(rightVm, leftVm);
+    }
+
+    // Checks whether vm fits in the host of otherVm
+    private boolean fits(Vm vm, Vm otherVm) {
+        return otherVm.getHost() == null || otherVm.getHost().hasCapacityFor(vm);
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.domain.filters;
+
+import es.bsc.clopla.domain.Vm;
+import org.optaplanner.core.impl.heuristic.selector.common.decorator.SelectionFilter;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+
+/**
+ * This class filters the VMs that the planner is allowed to move. VMs marked as 'fixed' need to stay in the host
+ * that they are assigned to, so they are never selected by the construction heuristic or by the local search moves.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class MovableVmSelectionFilter implements SelectionFilter<Vm> {
+
+    @Override
+    public boolean accept(ScoreDirector scoreDirector, Vm vm) {
+        return !vm.isFixed();
+    }
+
+}
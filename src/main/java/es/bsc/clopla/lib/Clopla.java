@@ -20,7 +20,10 @@
 package es.bsc.clopla.lib;
 
 import es.bsc.clopla.domain.*;
+import es.bsc.clopla.placement.BestSolutionListener;
+import es.bsc.clopla.placement.VmPlacementPortfolio;
 import es.bsc.clopla.placement.VmPlacementProblem;
+import es.bsc.clopla.placement.VmPlacementTask;
 import es.bsc.clopla.placement.config.VmPlacementConfig;
 
 import java.util.*;
@@ -37,6 +40,24 @@ public class Clopla implements IClopla {
         return new VmPlacementProblem(hosts, vms, config).getBestSolution();
     }
 
+    @Override
+    public ClusterState getBestSolution(List<Host> hosts, List<Vm> vms, VmPlacementConfig config,
+                                        ClusterState previousSolution) {
+        return new VmPlacementProblem(hosts, vms, config, previousSolution).getBestSolution();
+    }
+
+    @Override
+    public ClusterState getBestSolution(List<Host> hosts, List<Vm> vms, List<VmPlacementConfig> configs,
+                                        int maxThreads) {
+        return new VmPlacementPortfolio(hosts, vms, configs, maxThreads).getBestSolution();
+    }
+
+    @Override
+    public VmPlacementTask getBestSolutionAsync(List<Host> hosts, List<Vm> vms, VmPlacementConfig config,
+                                                BestSolutionListener listener) {
+        return new VmPlacementProblem(hosts, vms, config).solveAsync(listener);
+    }
+
     @Override
     public List<ConstructionHeuristic> getConstructionHeuristics() {
         return new ArrayList<>(Arrays.asList(ConstructionHeuristic.values()));
@@ -20,12 +20,18 @@
 package es.bsc.clopla.lib;
 
 import es.bsc.clopla.domain.*;
+import es.bsc.clopla.placement.BestSolutionListener;
+import es.bsc.clopla.placement.VmPlacementTask;
 import es.bsc.clopla.placement.config.VmPlacementConfig;
 
 import java.util.List;
 import java.util.Map;
 
 /**
+ * The hosts and VMs received are never modified: each placement problem works with its own copies of the VMs, and
+ * hosts are immutable. This means that the same lists can be passed to several calls that run at the same time.
+ * The VMs of the returned cluster states are copies too.
+ *
  * @author David Ortiz (david.ortiz@bsc.es)
  */
 public interface IClopla {
@@ -41,6 +47,50 @@ public interface IClopla {
      */
     ClusterState getBestSolution(List<Host> hosts, List<Vm> vms, VmPlacementConfig config);
 
+    /**
+     * Given a list of hosts, a list of VMs, applies the best placement that can be found according to the
+     * configuration parameters specified, starting the search from a previous solution.
+     * This is useful to re-plan a cluster that has changed little since the previous solution was calculated.
+     * The construction heuristic is only applied when there are VMs that were not part of the previous solution
+     * and are not assigned to a host.
+     *
+     * @param hosts the hosts
+     * @param vms the VMs
+     * @param config the configuration parameters for the placement
+     * @param previousSolution the solution to start from. For example, the one returned by a previous call
+     * @return the state of the cluster after applying the best placement that could be found
+     */
+    ClusterState getBestSolution(List<Host> hosts, List<Vm> vms, VmPlacementConfig config,
+                                 ClusterState previousSolution);
+
+    /**
+     * Given a list of hosts, a list of VMs, searches the best placement with several configurations in parallel and
+     * returns the best placement found by any of them. All the configurations need to use the same policy.
+     * Using different local search algorithms or different random seeds makes it more likely to find a good
+     * placement within the time limit.
+     *
+     * @param hosts the hosts
+     * @param vms the VMs
+     * @param configs the configurations
+     * @param maxThreads the maximum number of configurations that are used at the same time
+     * @return the state of the cluster after applying the best placement that could be found
+     */
+    ClusterState getBestSolution(List<Host> hosts, List<Vm> vms, List<VmPlacementConfig> configs, int maxThreads);
+
+    /**
+     * Given a list of hosts, a list of VMs, starts searching the best placement according to the configuration
+     * parameters specified in the background, and returns without waiting for the search to finish.
+     *
+     * @param hosts the hosts
+     * @param vms the VMs
+     * @param config the configuration parameters for the placement
+     * @param listener the listener notified each time that a better placement is found. It can decide that the
+     *                 placement is good enough and stop the search. It can be null
+     * @return the task that is searching the placement
+     */
+    VmPlacementTask getBestSolutionAsync(List<Host> hosts, List<Vm> vms, VmPlacementConfig config,
+                                         BestSolutionListener listener);
+
     /**
      * Returns a list of the construction heuristics that are supported by the library.
      *
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package es.bsc.clopla.modellers;
+
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Base class for the Price Modellers that implement the bulk interface.
+ * It adapts the per-host interface, PriceModeller.getCost, to a call to the bulk interface with a single host,
+ * so bulk modellers can be configured in the same way as the rest of Price Modellers.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public abstract class AbstractBulkPriceModeller implements PriceModeller, BulkPriceModeller {
+
+    @Override
+    public double getCost(Host host, List<Vm> vmsDeployedInHost) {
+        int ncpusUsed = 0;
+        int ramMbUsed = 0;
+        int diskGbUsed = 0;
+        for (Vm vm: vmsDeployedInHost) {
+            ncpusUsed += vm.getNcpus();
+            ramMbUsed += vm.getRamMb();
+            diskGbUsed += vm.getDiskGb();
+        }
+        return getCosts(Collections.singletonList(host),
+                new int[] { ncpusUsed }, new int[] { ramMbUsed }, new int[] { diskGbUsed })[0];
+    }
+
+}
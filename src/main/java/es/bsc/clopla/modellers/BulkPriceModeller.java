@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package es.bsc.clopla.modellers;
+
+import es.bsc.clopla.domain.Host;
+
+import java.util.List;
+
+/**
+ * Interface for Price Modellers that can calculate the cost of several hosts at once.
+ * The price policy uses this interface instead of PriceModeller.getCost when the configured Price Modeller
+ * implements it.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public interface BulkPriceModeller {
+
+    /**
+     * Returns the cost of running a set of hosts given the resources used in each of them.
+     * The i-th element of the arrays of used resources corresponds to the i-th host of the list.
+     * The arrays are owned by the caller, so they must not be modified or kept after the call returns.
+     *
+     * @param hosts the hosts
+     * @param ncpusUsed the number of CPUs used in each host
+     * @param ramMbUsed the RAM (MB) used in each host
+     * @param diskGbUsed the disk (GB) used in each host
+     * @return the cost of each host
+     */
+    double[] getCosts(List<Host> hosts, int[] ncpusUsed, int[] ramMbUsed, int[] diskGbUsed);
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package es.bsc.clopla.modellers;
+
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Energy Modeller that caches the power consumption returned by another Energy Modeller.
+ * The power consumption of a host only depends on the host and on the VMs deployed in it, so the result is cached
+ * using the ID and the capacity of the host, and the IDs and the resource demands of its VMs as the key. A modeller
+ * can be reused by several problems, so a VM or a host that changes its size is considered a different one. When a VM
+ * is moved, only the two hosts involved in the move have a VM set that has not been seen before, so the rest of hosts
+ * do not need to query the modeller again.
+ * The cache is bounded. When it is full, the least recently used entry is evicted. The bound can be raised later,
+ * for example when the cache is used by a problem with more hosts than the entries that it can hold.
+ * Looking up the cache does not allocate any objects: the key is written in a buffer that is reused by all the
+ * calls, and it is only copied when a new entry is added to the cache.
+ * The cache can be shared by several threads, for example by the partitions of a problem. The lock is only held
+ * while the cache is read or updated, so the wrapped modeller can be called by several threads at the same time,
+ * and two threads that miss the same entry at the same time might both query it.
+ *  
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class CachedEnergyModeller implements EnergyModeller {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private final EnergyModeller energyModeller;
+    private final Map<Key, Double> cache;
+    private final Key lookupKey = new Key(); // Access synchronized on this
+    private int maxEntries; // Access synchronized on this
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Class constructor.
+     *
+     * @param energyModeller the energy modeller whose results are cached
+     * @param maxEntries the maximum number of entries of the cache
+     */
+    public CachedEnergyModeller(EnergyModeller energyModeller, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("The cache needs to hold at least one entry");
+        }
+        this.energyModeller = energyModeller;
+        this.maxEntries = maxEntries;
+        this.cache = new LinkedHashMap<Key, Double>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Double> eldest) {
+                return size() > CachedEnergyModeller.this.maxEntries; // Only called by put, under the lock
+            }
+        };
+    }
+
+    public CachedEnergyModeller(EnergyModeller energyModeller) {
+        this(energyModeller, DEFAULT_MAX_ENTRIES);
+    }
+
+    @Override
+    public double getPowerConsumption(Host host, List<Vm> vmsDeployedInHost) {
+        Key newKey;
+        synchronized (this) {
+            lookupKey.set(host, vmsDeployedInHost);
+            Double cachedResult = cache.get(lookupKey);
+            if (cachedResult != null) {
+                ++hits;
+                return cachedResult;
+            }
+            ++misses;
+            newKey = lookupKey.copy(); // The buffer is reused by other threads while the modeller is queried
+        }
+        double result = energyModeller.getPowerConsumption(host, vmsDeployedInHost);
+        synchronized (this) {
+            cache.put(newKey, result);
+        }
+        return result;
+    }
+
+    public synchronized int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Raises the maximum number of entries of the cache if it is lower than the given one. It is never lowered, so
+     * problems of different sizes that share the cache do not evict the entries of each other.
+     *
+     * @param maxEntries the minimum number of entries that the cache needs to be able to hold
+     */
+    public synchronized void ensureMaxEntries(int maxEntries) {
+        this.maxEntries = Math.max(this.maxEntries, maxEntries);
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the ratio of calls that were answered from the cache.
+     *
+     * @return the hit rate, or 0 if the modeller has not been called yet
+     */
+    public synchronized double getHitRate() {
+        return hits + misses == 0 ? 0 : hits/(double) (hits + misses);
+    }
+
+    /**
+     * Key of the cache: the ID and the capacity of the host followed by the ID and the demands of each of its VMs.
+     */
+    private static class Key {
+
+        private static final int HOST_FIELDS = 4;
+        private static final int VM_FIELDS = 4;
+
+        private long[] fields;
+        private int length = 0;
+        private int hash = 0;
+
+        public Key() {
+            fields = new long[HOST_FIELDS + 4*VM_FIELDS]; // Grows when a host has more VMs
+        }
+
+        private Key(long[] fields, int hash) {
+            this.fields = fields;
+            this.length = fields.length;
+            this.hash = hash;
+        }
+
+        public void set(Host host, List<Vm> vmsDeployedInHost) {
+            length = HOST_FIELDS + vmsDeployedInHost.size()*VM_FIELDS;
+            if (fields.length < length) {
+                fields = new long[Math.max(length, fields.length*2)];
+            }
+            fields[0] = host.getId();
+            fields[1] = host.getNcpus();
+            fields[2] = Double.doubleToLongBits(host.getRamMb());
+            fields[3] = Double.doubleToLongBits(host.getDiskGb());
+            for (int i = 0; i < vmsDeployedInHost.size(); ++i) { // Indexed, so no iterator is created
+                Vm vm = vmsDeployedInHost.get(i);
+                int offset = HOST_FIELDS + i*VM_FIELDS;
+                fields[offset] = vm.getId();
+                fields[offset + 1] = vm.getNcpus();
+                fields[offset + 2] = vm.getRamMb();
+                fields[offset + 3] = vm.getDiskGb();
+            }
+            hash = 1;
+            for (int i = 0; i < length; ++i) {
+                hash = 31*hash + (int) (fields[i] ^ (fields[i] >>> 32));
+            }
+        }
+
+        public Key copy() {
+            return new Key(Arrays.copyOf(fields, length), hash);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            if (length != other.length || hash != other.hash) {
+                return false;
+            }
+            for (int i = 0; i < length; ++i) {
+                if (fields[i] != other.fields[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
@@ -26,6 +26,8 @@ import java.util.List;
 
 /**
  * Interface for the Price Modeller to be used in the pricing policy.
+ * The list of VMs deployed in the host is a view that the score calculators reuse for the next host, so it is only
+ * valid during the call. Modellers that need to keep it should copy it.
  *  
  * @author David Ortiz (david.ortiz@bsc.es)
  */
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement;
+
+import es.bsc.clopla.domain.ClusterState;
+
+/**
+ * Listener that is notified each time that the solver of an asynchronous placement finds a better solution.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public interface BestSolutionListener {
+
+    /**
+     * This function is called from the thread of the solver each time that it finds a new best solution.
+     * It should return quickly, because the solver does not continue until it returns.
+     *
+     * @param bestSolution the new best solution
+     * @return true if the solution is good enough and the solver should stop, false to keep improving it
+     */
+    boolean bestSolutionChanged(ClusterState bestSolution);
+
+}
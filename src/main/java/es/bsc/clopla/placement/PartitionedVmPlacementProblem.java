@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import es.bsc.clopla.domain.comparators.VmDifficultyComparator;
+import es.bsc.clopla.placement.config.VmPlacementConfig;
+import es.bsc.clopla.placement.partitioning.HostPartitioner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class describes a placement problem that is split into smaller ones that are solved in parallel.
+ * This is useful for clusters so large that a single search over all the hosts and VMs scales poorly.
+ * The hosts are split by a HostPartitioner. The VMs that are assigned to a host belong to the partition of their
+ * host. The rest are given to the partitions with most CPUs free, starting with the most difficult ones.
+ * Each partition is solved as a VmPlacementProblem. The solutions of the partitions are then merged and, optionally,
+ * improved with a global search that starts from the merged solution.
+ * The energy and price modellers are shared by all the solvers, so they need to be thread-safe.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class PartitionedVmPlacementProblem {
+
+    private final List<Host> hosts;
+    private final List<Vm> vms;
+    private final VmPlacementConfig config;
+    private final HostPartitioner partitioner;
+    private final int maxThreads;
+    private final VmPlacementConfig polishConfig; // null if the merged solution is not improved
+
+    /**
+     * Class constructor.
+     *
+     * @param hosts the hosts
+     * @param vms the virtual machines
+     * @param config the configuration used to solve each partition
+     * @param partitioner the partitioner used to split the hosts
+     * @param maxThreads the maximum number of partitions that are solved at the same time
+     * @param polishConfig the configuration used to improve the merged solution. It should not have a construction
+     *                     heuristic and should have a short time limit. Null to return the merged solution
+     */
+    public PartitionedVmPlacementProblem(List<Host> hosts, List<Vm> vms, VmPlacementConfig config,
+                                         HostPartitioner partitioner, int maxThreads,
+                                         VmPlacementConfig polishConfig) {
+        if (hosts.isEmpty()) {
+            throw new IllegalArgumentException("The partitioned problem needs at least one host");
+        }
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("The partitioned problem needs at least one thread");
+        }
+        this.hosts = new ArrayList<>(hosts);
+        this.vms = new ArrayList<>(vms);
+        this.config = config;
+        this.partitioner = partitioner;
+        this.maxThreads = maxThreads;
+        this.polishConfig = polishConfig;
+        config.ensureEnergyModellerCacheFits(hosts.size()); // The partitions share the cache of the configuration
+    }
+
+    /**
+     * This function returns the best solution to the problem. If there is not a polish configuration, the solution
+     * returned is the merge of the solutions of the partitions and it does not have a score.
+     *
+     * @return the state of a cluster after solving the placement problem
+     */
+    public ClusterState getBestSolution() {
+        ClusterState mergedSolution = mergeSolutions(solvePartitions(getPartitions()));
+        if (polishConfig == null) {
+            return mergedSolution;
+        }
+        return new VmPlacementProblem(hosts, vms, polishConfig, mergedSolution).getBestSolution();
+    }
+
+    /**
+     * Splits the problem into partitions.
+     *
+     * @return the list of partitions
+     */
+    List<Partition> getPartitions() {
+        List<Partition> result = new ArrayList<>();
+        Map<Long, Partition> partitionOfHosts = new HashMap<>();
+        for (List<Host> partitionHosts: partitioner.partition(hosts)) {
+            Partition partition = new Partition(partitionHosts);
+            result.add(partition);
+            for (Host host: partitionHosts) {
+                partitionOfHosts.put(host.getId(), partition);
+            }
+        }
+
+        List<Vm> vmsWithoutPartition = new ArrayList<>();
+        for (Vm vm: vms) {
+            Partition partition = vm.getHost() == null ? null : partitionOfHosts.get(vm.getHost().getId());
+            if (partition != null) {
+                partition.addVm(vm);
+            }
+            else {
+                vmsWithoutPartition.add(vm);
+            }
+        }
+
+        Collections.sort(vmsWithoutPartition, Collections.reverseOrder(new VmDifficultyComparator()));
+        for (Vm vm: vmsWithoutPartition) {
+            getPartitionWithMostFreeCpus(result).addVm(vm);
+        }
+        return result;
+    }
+
+    private Partition getPartitionWithMostFreeCpus(List<Partition> partitions) {
+        Partition result = partitions.get(0);
+        for (Partition partition: partitions) {
+            if (partition.getFreeCpus() > result.getFreeCpus()) {
+                result = partition;
+            }
+        }
+        return result;
+    }
+
+    private List<ClusterState> solvePartitions(List<Partition> partitions) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxThreads, partitions.size()));
+        try {
+            List<Future<ClusterState>> solutions = new ArrayList<>();
+            for (Partition partition: partitions) {
+                solutions.add(executor.submit(getSolvingTask(partition)));
+            }
+            List<ClusterState> result = new ArrayList<>();
+            for (Future<ClusterState> solution: solutions) {
+                result.add(solution.get());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving the partitions", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Callable<ClusterState> getSolvingTask(final Partition partition) {
+        return new Callable<ClusterState>() {
+            @Override
+            public ClusterState call() {
+                return new VmPlacementProblem(partition.getHosts(), partition.getVms(), config).getBestSolution();
+            }
+        };
+    }
+
+    /**
+     * Merges the solutions of the partitions into a solution for the whole cluster.
+     *
+     * @param solutions the solutions of the partitions
+     * @return the merged solution
+     */
+    private ClusterState mergeSolutions(List<ClusterState> solutions) {
+        List<Vm> mergedVms = new ArrayList<>();
+        for (ClusterState solution: solutions) {
+            mergedVms.addAll(solution.getVms());
+        }
+        ClusterState result = new ClusterState();
+        result.setVms(mergedVms);
+        result.setHosts(hosts);
+        return result;
+    }
+
+    /**
+     * Part of the problem: a subset of the hosts and the VMs that are placed in them.
+     */
+    static class Partition {
+
+        private final List<Host> hosts;
+        private final List<Vm> vms = new ArrayList<>();
+        private int freeCpus = 0;
+
+        public Partition(List<Host> hosts) {
+            this.hosts = hosts;
+            for (Host host: hosts) {
+                freeCpus += host.getNcpus();
+            }
+        }
+
+        public void addVm(Vm vm) {
+            vms.add(vm);
+            freeCpus -= vm.getNcpus();
+        }
+
+        public List<Host> getHosts() {
+            return hosts;
+        }
+
+        public List<Vm> getVms() {
+            return vms;
+        }
+
+        public int getFreeCpus() {
+            return freeCpus;
+        }
+
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import es.bsc.clopla.placement.config.VmPlacementConfig;
+import org.optaplanner.core.api.score.Score;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class solves the same placement problem with several configurations in parallel and returns the best
+ * solution found by any of them. The configurations can use different local search algorithms or different random
+ * seeds, but they all need to use the same policy, so their scores can be compared.
+ * Each configuration is solved with its own copy of the VMs. An energy or price modeller that is shared by several
+ * configurations is used by several solvers at the same time, so it needs to be thread-safe.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class VmPlacementPortfolio {
+
+    private final List<Host> hosts;
+    private final List<Vm> vms;
+    private final List<VmPlacementConfig> configs;
+    private final int maxThreads;
+
+    /**
+     * Class constructor.
+     *
+     * @param hosts the hosts
+     * @param vms the virtual machines
+     * @param configs the configurations used to solve the problem
+     * @param maxThreads the maximum number of configurations that are solved at the same time
+     */
+    public VmPlacementPortfolio(List<Host> hosts, List<Vm> vms, List<VmPlacementConfig> configs, int maxThreads) {
+        if (configs.isEmpty()) {
+            throw new IllegalArgumentException("The portfolio needs at least one configuration");
+        }
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("The portfolio needs at least one thread");
+        }
+        for (VmPlacementConfig config: configs) {
+            if (config.getPolicy() != configs.get(0).getPolicy()) {
+                throw new IllegalArgumentException("All the configurations of the portfolio need the same policy");
+            }
+        }
+        this.hosts = new ArrayList<>(hosts);
+        this.vms = new ArrayList<>(vms);
+        this.configs = new ArrayList<>(configs);
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * Solves the problem with all the configurations and returns the solution with the best score.
+     * When there are more configurations than threads, some configurations do not start until others finish.
+     *
+     * @return the best solution
+     */
+    public ClusterState getBestSolution() {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxThreads, configs.size()));
+        try {
+            List<Future<ClusterState>> solutions = new ArrayList<>();
+            for (VmPlacementConfig config: configs) {
+                solutions.add(executor.submit(getSolvingTask(config)));
+            }
+            ClusterState result = null;
+            for (Future<ClusterState> solution: solutions) {
+                result = getBestSolution(result, solution.get());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving the portfolio", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Callable<ClusterState> getSolvingTask(final VmPlacementConfig config) {
+        return new Callable<ClusterState>() {
+            @Override
+            public ClusterState call() {
+                return new VmPlacementProblem(hosts, vms, config).getBestSolution();
+            }
+        };
+    }
+
+    /**
+     * Returns the solution with the best score. A solution without score is worse than any other.
+     *
+     * @param solution1 a solution. It can be null
+     * @param solution2 a solution. It can be null
+     * @return the best solution
+     */
+    @SuppressWarnings("unchecked")
+    private static ClusterState getBestSolution(ClusterState solution1, ClusterState solution2) {
+        if (solution1 == null || solution1.getScore() == null) {
+            return solution2;
+        }
+        if (solution2 == null || solution2.getScore() == null) {
+            return solution1;
+        }
+        Score score1 = solution1.getScore();
+        return score1.compareTo(solution2.getScore()) >= 0 ? solution1 : solution2;
+    }
+
+}
@@ -21,13 +21,16 @@ package es.bsc.clopla.placement;
 
 import es.bsc.clopla.domain.ClusterState;
 import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.PlacementContext;
 import es.bsc.clopla.domain.Vm;
 import es.bsc.clopla.placement.config.VmPlacementConfig;
 import es.bsc.clopla.placement.solver.VmPlacementSolver;
 import org.optaplanner.core.api.solver.Solver;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class describes the problem of placing n VMs in m hosts. This class defines a list of virtual machines,
@@ -39,9 +42,12 @@ import java.util.List;
 public class VmPlacementProblem {
 
     private final List<Vm> vms;
-    private final List<Host> hosts;
+    private final List<Host> hosts; // The hosts that are off are at the end of the list
+    private final Map<Long, Host> hostsById;
     private final VmPlacementConfig config;
     private final VmPlacementSolver vmPlacementSolver;
+    private final ClusterState previousSolution; // null if the problem is solved from scratch
+    private final PlacementContext placementContext;
 
     /**
      * Class constructor.
@@ -51,12 +57,31 @@ public class VmPlacementProblem {
      * @param config the configuration object for the VM placement problem
      */
     public VmPlacementProblem(List<Host> hosts, List<Vm> vms, VmPlacementConfig config) {
-        this.hosts = new ArrayList<>(hosts);
-        this.vms = new ArrayList<>(vms);
+        this(hosts, vms, config, null);
+    }
+
+    /**
+     * Class constructor for problems that start from the solution of a previous one.
+     * The VMs that were part of the previous solution start in the host that the solution assigned them to, as
+     * long as that host is still part of the problem. The rest of VMs start in the host that they are assigned to.
+     * The number of migrations is still calculated from the host that each VM is assigned to.
+     *
+     * @param hosts the hosts
+     * @param vms the virtual machines
+     * @param config the configuration object for the VM placement problem
+     * @param previousSolution the solution to start from
+     */
+    public VmPlacementProblem(List<Host> hosts, List<Vm> vms, VmPlacementConfig config,
+                              ClusterState previousSolution) {
+        this.hosts = putOffHostsAtTheEndOfTheList(hosts);
+        this.hostsById = indexHostsById(this.hosts);
         this.config = config;
+        this.vms = registerVms(vms);
+        this.previousSolution = previousSolution;
         this.vmPlacementSolver = new VmPlacementSolver(config);
-        VmPlacementConfig.initialClusterState.set(getInitialState());
-        addFixedVmsToHosts();
+        config.ensureEnergyModellerCacheFits(this.hosts.size());
+        this.placementContext = new PlacementContext(
+                config.getEnergyModeller(), config.getPriceModeller(), getInitialState());
     }
 
     /**
@@ -65,42 +90,124 @@ public class VmPlacementProblem {
      * @return the state of a cluster after solving the placement problem
      */
     public ClusterState getBestSolution() {
-        Solver solver = vmPlacementSolver.buildSolver();
-        solver.setPlanningProblem(getInitialState());
-        solver.solve();
-        ClusterState result = (ClusterState) solver.getBestSolution();
-        cleanThreadLocals(); // to avoid memory leaks
+        ClusterState startingState = getStartingState();
+        boolean constructionHeuristicNeeded = isConstructionHeuristicNeeded(startingState);
+        if (!constructionHeuristicNeeded && config.getLocalSearch() == null) {
+            return startingState; // There are not any phases to run
+        }
+
+        Solver solver = vmPlacementSolver.buildSolver(constructionHeuristicNeeded);
+        solver.setPlanningProblem(startingState);
+        VmPlacementSolver.solve(solver);
+        return (ClusterState) solver.getBestSolution();
+    }
+
+    /**
+     * This function starts solving the problem in the background and returns immediately.
+     * The returned task can be used to get the best solution found so far, to wait for the final solution, or to
+     * stop the solver before it reaches the time limit.
+     *
+     * @param listener the listener notified each time that the solver finds a better solution. It can be null
+     * @return the task that is solving the problem
+     */
+    public VmPlacementTask solveAsync(BestSolutionListener listener) {
+        ClusterState startingState = getStartingState();
+        // The solver needs at least one phase, so the construction heuristic is kept when there is no local search
+        boolean constructionHeuristicEnabled =
+                isConstructionHeuristicNeeded(startingState) || config.getLocalSearch() == null;
+        VmPlacementTask result = new VmPlacementTask(
+                vmPlacementSolver.buildSolver(constructionHeuristicEnabled), startingState, listener);
+        result.start();
         return result;
     }
 
     /**
-     * This function adds to the hosts the VMs that the user specified that need to be deployed in that host.
-     * We refer to those VMs as 'fixed'. This function only adds the VMs as fixed if the option of fixed VMs is
-     * active in the configuration.
+     * This function starts a session that keeps solving the problem in the background. VMs and hosts can be added
+     * to and removed from the session while it is running, and the solver takes them into account without
+     * starting from scratch. The session needs to be stopped when it is no longer needed.
+     *
+     * @return the session
      */
-    private void addFixedVmsToHosts() {
-        if (config.vmsAreFixed()) {
-            for (Vm vm: vms) {
-                if (vm.getHost() != null) {
-                    getHost(vm.getHost().getId()).addFixedVm(vm.getId());
+    public VmPlacementSession startSession() {
+        // The construction heuristic is always included because the VMs added to the session need to be placed
+        VmPlacementSession result = new VmPlacementSession(
+                vmPlacementSolver.buildSolver(), getStartingState(), config);
+        result.start();
+        return result;
+    }
+
+    /**
+     * This function returns the copies of the VMs that the problem works with. The VMs received are never modified,
+     * so the same VMs can be part of several problems that are solved at the same time.
+     * The copy of a VM that is assigned to a host is assigned to the instance of that host that is part of the
+     * problem, because the hosts are compared by identity. The copies of the VMs that the user specified that need
+     * to be deployed in the host that they are assigned to are marked as 'fixed'. The planner does not move those
+     * VMs. This function only marks the VMs as fixed if the option of fixed VMs is active in the configuration.
+     *
+     * @param vms the VMs received
+     * @return the copies of the VMs
+     */
+    private List<Vm> registerVms(List<Vm> vms) {
+        List<Vm> result = new ArrayList<>(vms.size());
+        for (Vm vm: vms) {
+            Vm registeredVm = vm.copy();
+            if (vm.getHost() != null) {
+                Host host = hostsById.get(vm.getHost().getId());
+                if (host != null && host != vm.getHost()) {
+                    registeredVm.setHost(host);
                 }
             }
+            registeredVm.setFixed(config.vmsAreFixed() && registeredVm.getHost() != null);
+            result.add(registeredVm);
         }
+        return result;
     }
 
     /**
-     * Returns a host by ID from the list of hosts.
+     * Returns the state that the solver starts from. If there is not a previous solution, the VMs are placed as in
+     * the initial state of the cluster. Otherwise, the VMs that are not fixed are placed in the host that the previous
+     * solution assigned them to. The VMs are copied each time, so the initial state used to count the migrations is
+     * not modified, and the problem can be solved more than once.
      *
-     * @param id the ID of the host
-     * @return the host
+     * @return the starting state
      */
-    private Host getHost(long id) {
-        for (Host host: hosts) {
-            if (host.getId().equals(id)) {
-                return host;
+    private ClusterState getStartingState() {
+        List<Vm> startingVms = new ArrayList<>(vms.size());
+        for (Vm vm: vms) {
+            Vm startingVm = vm.copy();
+            Vm previousVm = previousSolution == null ? null : previousSolution.getVmById(vm.getId());
+            if (!vm.isFixed() && previousVm != null && previousVm.getHost() != null
+                    && hostsById.containsKey(previousVm.getHost().getId())) {
+                startingVm.setHost(hostsById.get(previousVm.getHost().getId()));
+            }
+            startingVms.add(startingVm);
+        }
+
+        ClusterState result = new ClusterState();
+        result.setVms(startingVms);
+        result.setHosts(hosts);
+        result.setPlacementContext(placementContext);
+        return result;
+    }
+
+    /**
+     * Checks whether the construction heuristic needs to be applied. When starting from a previous solution, it is
+     * only needed when there are VMs that have not been assigned to a host.
+     *
+     * @param startingState the state that the solver starts from
+     * @return true if the construction heuristic is needed, false otherwise
+     */
+    private boolean isConstructionHeuristicNeeded(ClusterState startingState) {
+        return previousSolution == null || hasUnassignedVms(startingState);
+    }
+
+    private boolean hasUnassignedVms(ClusterState clusterState) {
+        for (Vm vm: clusterState.getVms()) {
+            if (vm.getHost() == null) {
+                return true;
             }
         }
-        return null;
+        return false;
     }
 
     /**
@@ -113,56 +220,38 @@ public class VmPlacementProblem {
     private ClusterState getInitialState() {
         ClusterState result = new ClusterState();
         result.setVms(vms);
-        result.setHosts(putOffHostsAtTheEndOfTheList());
+        result.setHosts(hosts);
         return result;
     }
 
     /**
-     * Returns a modified list of the hosts, where the ones that are off are placed at the end of the list.
+     * Returns a copy of the list of hosts, where the ones that are off are placed at the end of the list.
      * This method does not modify the order of the rest of the elements.
-     * @return the list of hosts with the ones that are off at the end
-     */
-    private List<Host> putOffHostsAtTheEndOfTheList() {
-        List<Host> result = new ArrayList<>();
-        result.addAll(getOnHosts());
-        result.addAll(getInitiallyOffHosts());
-        return result;
-    }
-
-    /**
-     * Returns a list that contains the hosts that are on.
      *
-     * @return the list of hosts
+     * @param hosts the list of hosts
+     * @return the list of hosts with the ones that are off at the end
      */
-    private List<Host> getOnHosts() {
-        List<Host> result = new ArrayList<>();
+    private static List<Host> putOffHostsAtTheEndOfTheList(List<Host> hosts) {
+        List<Host> result = new ArrayList<>(hosts.size());
+        List<Host> offHosts = new ArrayList<>();
         for (Host host: hosts) {
-            if (!host.wasOffInitiallly()) {
+            if (host.wasOffInitiallly()) {
+                offHosts.add(host);
+            }
+            else {
                 result.add(host);
             }
         }
+        result.addAll(offHosts);
         return result;
     }
 
-    /**
-     * Returns a list that contains the hosts that were off at the beginning of the planning.
-     *
-     * @return the list of hosts
-     */
-    private List<Host> getInitiallyOffHosts() {
-        List<Host> result = new ArrayList<>();
+    private static Map<Long, Host> indexHostsById(List<Host> hosts) {
+        Map<Long, Host> result = new HashMap<>();
         for (Host host: hosts) {
-            if (host.wasOffInitiallly()) {
-                result.add(host);
-            }
+            result.put(host.getId(), host);
         }
         return result;
     }
-    
-    private void cleanThreadLocals() {
-        VmPlacementConfig.energyModeller.set(null);
-        VmPlacementConfig.priceModeller.set(null);
-        VmPlacementConfig.initialClusterState.set(null);
-    }
 
 }
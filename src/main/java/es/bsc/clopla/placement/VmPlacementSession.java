@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import es.bsc.clopla.placement.changes.AddHostChange;
+import es.bsc.clopla.placement.changes.AddVmChange;
+import es.bsc.clopla.placement.changes.RemoveHostChange;
+import es.bsc.clopla.placement.changes.RemoveVmChange;
+import es.bsc.clopla.placement.config.VmPlacementConfig;
+import es.bsc.clopla.placement.solver.VmPlacementSolver;
+import org.optaplanner.core.api.score.Score;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.impl.event.BestSolutionChangedEvent;
+import org.optaplanner.core.impl.event.SolverEventListener;
+import org.optaplanner.core.impl.solver.ProblemFactChange;
+
+/**
+ * This class keeps a solver running in the background for a placement problem. Instead of building a new problem
+ * each time that the cluster changes, the VMs and hosts that arrive or leave are passed to the solver as problem
+ * fact changes. The solver applies them to its working solution and keeps improving it.
+ * Each run of the solver ends with the termination of the configuration. If the run improved the best solution, the
+ * solver starts another one straight away, so it keeps solving while it keeps finding better solutions. It only
+ * waits until there is a new change after a run that did not improve the best solution.
+ * If the solver fails, for example while applying a change, the session stops and the exception is rethrown by
+ * getBestSolution(), by the methods that add and remove VMs and hosts, and by stop().
+ * Sessions are created with VmPlacementProblem.startSession().
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class VmPlacementSession {
+
+    private static final long TERMINATION_CHECK_INTERVAL_MILLIS = 100;
+
+    private final Solver solver;
+    private final VmPlacementConfig config;
+    private final Thread solvingThread;
+
+    private ClusterState bestSolution;
+    private boolean changesPending = false;
+    private boolean stopped = false;
+    private RuntimeException failure = null;
+
+    /**
+     * Class constructor.
+     *
+     * @param solver the solver
+     * @param startingState the state that the solver starts from
+     * @param config the configuration object for the VM placement problem
+     */
+    VmPlacementSession(Solver solver, ClusterState startingState, VmPlacementConfig config) {
+        this.solver = solver;
+        this.config = config;
+        this.bestSolution = startingState;
+        this.solvingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                solveUntilStopped();
+            }
+        }, "clopla-placement-session");
+        this.solvingThread.setDaemon(true);
+        solver.addEventListener(new SolverEventListener() {
+            @Override
+            public void bestSolutionChanged(BestSolutionChangedEvent event) {
+                setBestSolution((ClusterState) event.getNewBestSolution());
+            }
+        });
+    }
+
+    void start() {
+        solvingThread.start();
+    }
+
+    /**
+     * Adds a VM to the cluster. If the VM is assigned to a host and the VMs of the configuration are fixed, the VM
+     * stays in that host.
+     *
+     * @param vm the VM
+     */
+    public void addVm(Vm vm) {
+        Vm newVm = vm.copy();
+        newVm.setFixed(config.vmsAreFixed() && vm.getHost() != null);
+        addProblemFactChange(new AddVmChange(newVm));
+    }
+
+    public void removeVm(long vmId) {
+        addProblemFactChange(new RemoveVmChange(vmId));
+    }
+
+    public void addHost(Host host) {
+        addProblemFactChange(new AddHostChange(host));
+    }
+
+    /**
+     * Removes a host from the cluster. The VMs assigned to the host are placed in other hosts.
+     *
+     * @param hostId the ID of the host
+     */
+    public void removeHost(long hostId) {
+        addProblemFactChange(new RemoveHostChange(hostId));
+    }
+
+    /**
+     * Returns the best solution found so far. It includes the changes that the solver has already processed.
+     *
+     * @return the best solution
+     */
+    public synchronized ClusterState getBestSolution() {
+        throwIfFailed();
+        return bestSolution;
+    }
+
+    /**
+     * Stops the solver and waits until it finishes.
+     *
+     * @throws RuntimeException the exception that made the solver fail, if it failed
+     */
+    public void stop() {
+        synchronized (this) {
+            stopped = true;
+            notifyAll();
+        }
+        try {
+            // The solver might be about to start solving again, so terminating it once is not enough
+            while (solvingThread.isAlive()) {
+                solver.terminateEarly();
+                solvingThread.join(TERMINATION_CHECK_INTERVAL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throwIfFailed();
+    }
+
+    public synchronized boolean isStopped() {
+        return stopped;
+    }
+
+    private synchronized void addProblemFactChange(ProblemFactChange problemFactChange) {
+        throwIfFailed();
+        if (stopped) {
+            throw new IllegalStateException("The placement session has been stopped");
+        }
+        // If the solver is not solving, the change is processed as soon as it starts again
+        solver.addProblemFactChange(problemFactChange);
+        changesPending = true;
+        notifyAll();
+    }
+
+    private synchronized void throwIfFailed() {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private synchronized void setFailure(RuntimeException failure) {
+        this.failure = failure;
+        stopped = true;
+        notifyAll();
+    }
+
+    private synchronized void setBestSolution(ClusterState bestSolution) {
+        this.bestSolution = bestSolution;
+    }
+
+    /**
+     * Waits until there are changes that the solver needs to process or the session is stopped. It does not wait if
+     * the last run of the solver improved the best solution.
+     *
+     * @param improved whether the last run of the solver improved the best solution
+     * @return true if the solver needs to run again, false if the session has been stopped
+     */
+    private synchronized boolean waitForChanges(boolean improved) throws InterruptedException {
+        while (!improved && !changesPending && !stopped) {
+            wait();
+        }
+        changesPending = false;
+        return !stopped;
+    }
+
+    private void solveUntilStopped() {
+        try {
+            boolean improved;
+            do {
+                ClusterState startingSolution = getBestSolution();
+                solver.setPlanningProblem(startingSolution);
+                VmPlacementSolver.solve(solver);
+                ClusterState result = (ClusterState) solver.getBestSolution();
+                setBestSolution(result);
+                improved = isImprovement(result.getScore(), startingSolution.getScore());
+            } while (waitForChanges(improved));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            setFailure(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean isImprovement(Score score, Score previousScore) {
+        if (score == null) {
+            return false;
+        }
+        return previousScore == null || score.compareTo(previousScore) > 0;
+    }
+
+}
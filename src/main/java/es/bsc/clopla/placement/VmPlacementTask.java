@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.placement.solver.VmPlacementSolver;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.impl.event.BestSolutionChangedEvent;
+import org.optaplanner.core.impl.event.SolverEventListener;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class represents a placement problem that is being solved in the background.
+ * The best solution found so far can be queried at any time, and the solver can be stopped before it reaches the
+ * time limit. Tasks are created with VmPlacementProblem.solveAsync().
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class VmPlacementTask {
+
+    private final Solver solver;
+    private final BestSolutionListener listener; // null if there is no listener
+    private final Thread solvingThread;
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private volatile ClusterState bestSolution;
+    private volatile boolean terminationRequested = false;
+    private volatile RuntimeException failure = null;
+
+    /**
+     * Class constructor.
+     *
+     * @param solver the solver
+     * @param startingState the state that the solver starts from
+     * @param listener the listener notified of the new best solutions. It can be null
+     */
+    VmPlacementTask(Solver solver, final ClusterState startingState, BestSolutionListener listener) {
+        this.solver = solver;
+        this.listener = listener;
+        this.bestSolution = startingState;
+        this.solvingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                solve(startingState);
+            }
+        }, "clopla-placement-task");
+        this.solvingThread.setDaemon(true);
+        solver.addEventListener(new SolverEventListener() {
+            @Override
+            public void bestSolutionChanged(BestSolutionChangedEvent event) {
+                onBestSolutionChanged((ClusterState) event.getNewBestSolution());
+            }
+        });
+    }
+
+    void start() {
+        solvingThread.start();
+    }
+
+    /**
+     * Returns the best solution found so far. This function does not block.
+     *
+     * @return the best solution
+     */
+    public ClusterState getBestSolution() {
+        return bestSolution;
+    }
+
+    /**
+     * Waits until the solver finishes and returns the best solution.
+     *
+     * @return the best solution
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public ClusterState get() throws InterruptedException {
+        finished.await();
+        return getResult();
+    }
+
+    /**
+     * Waits until the solver finishes or the timeout expires, whichever comes first, and returns the best solution
+     * found so far. The solver keeps running if the timeout expires.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return the best solution
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public ClusterState get(long timeout, TimeUnit unit) throws InterruptedException {
+        if (finished.await(timeout, unit)) {
+            return getResult();
+        }
+        return bestSolution;
+    }
+
+    /**
+     * Asks the solver to stop. The best solution found so far becomes the result of the task.
+     */
+    public void terminateEarly() {
+        terminationRequested = true;
+        solver.terminateEarly();
+    }
+
+    public boolean isDone() {
+        return finished.getCount() == 0;
+    }
+
+    private ClusterState getResult() {
+        if (failure != null) {
+            throw failure;
+        }
+        return bestSolution;
+    }
+
+    private void onBestSolutionChanged(ClusterState newBestSolution) {
+        bestSolution = newBestSolution;
+        if (listener != null && listener.bestSolutionChanged(newBestSolution)) {
+            terminationRequested = true;
+        }
+        // The termination might have been requested before the solver started
+        if (terminationRequested) {
+            solver.terminateEarly();
+        }
+    }
+
+    private void solve(ClusterState startingState) {
+        try {
+            if (!terminationRequested) {
+                solver.setPlanningProblem(startingState);
+                VmPlacementSolver.solve(solver);
+                bestSolution = (ClusterState) solver.getBestSolution();
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            finished.countDown();
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.changes;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.core.impl.solver.ProblemFactChange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Problem fact change that adds a host to the cluster while the solver is running.
+ * Like in the initial list of hosts of a problem, the hosts that are off are kept at the end of the list.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class AddHostChange implements ProblemFactChange {
+
+    private final Host host;
+
+    public AddHostChange(Host host) {
+        this.host = host;
+    }
+
+    @Override
+    public void doChange(ScoreDirector scoreDirector) {
+        ClusterState clusterState = (ClusterState) scoreDirector.getWorkingSolution();
+        List<Host> hosts = new ArrayList<>(clusterState.getHosts());
+        hosts.add(getPosition(hosts), host);
+        scoreDirector.beforeProblemFactAdded(host);
+        clusterState.setHosts(hosts);
+        scoreDirector.afterProblemFactAdded(host);
+    }
+
+    /**
+     * Returns the position of the list where the host should be added: at the end if the host is off, and
+     * before the first host that is off otherwise.
+     *
+     * @param hosts the list of hosts
+     * @return the position
+     */
+    private int getPosition(List<Host> hosts) {
+        if (!host.wasOffInitiallly()) {
+            for (int i = 0; i < hosts.size(); ++i) {
+                if (hosts.get(i).wasOffInitiallly()) {
+                    return i;
+                }
+            }
+        }
+        return hosts.size();
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.changes;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.core.impl.solver.ProblemFactChange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Problem fact change that adds a VM to the cluster while the solver is running.
+ * If the VM is assigned to a host, it starts in the host of the working solution that has the same ID. If the working
+ * solution does not have that host, the VM is added unassigned and it is not fixed, so the solver can place it.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class AddVmChange implements ProblemFactChange {
+
+    private final Vm vm;
+
+    /**
+     * Class constructor.
+     *
+     * @param vm the VM. It is added to the working solution of the solver, so it should not be modified afterwards
+     */
+    public AddVmChange(Vm vm) {
+        this.vm = vm;
+    }
+
+    @Override
+    public void doChange(ScoreDirector scoreDirector) {
+        ClusterState clusterState = (ClusterState) scoreDirector.getWorkingSolution();
+        if (vm.getHost() != null) {
+            Host host = clusterState.getHostById(vm.getHost().getId());
+            vm.setHost(host);
+            if (host == null) {
+                vm.setFixed(false);
+            }
+        }
+        List<Vm> vms = new ArrayList<>(clusterState.getVms());
+        vms.add(vm);
+        scoreDirector.beforeEntityAdded(vm);
+        clusterState.setVms(vms);
+        scoreDirector.afterEntityAdded(vm);
+    }
+
+}
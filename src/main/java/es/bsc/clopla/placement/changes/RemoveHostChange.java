@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.changes;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.core.impl.solver.ProblemFactChange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Problem fact change that removes a host from the cluster while the solver is running.
+ * The VMs assigned to the host are unassigned, so the solver needs to find a new host for them. The VMs that were
+ * fixed to the host are not fixed anymore.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class RemoveHostChange implements ProblemFactChange {
+
+    private final long hostId;
+
+    public RemoveHostChange(long hostId) {
+        this.hostId = hostId;
+    }
+
+    @Override
+    public void doChange(ScoreDirector scoreDirector) {
+        ClusterState clusterState = (ClusterState) scoreDirector.getWorkingSolution();
+        Host host = clusterState.getHostById(hostId);
+        if (host == null) {
+            return; // The host was already removed
+        }
+
+        // The list of VMs is a copy, so it can be iterated while the VMs are moved
+        for (Vm vm: clusterState.getVmsDeployedInHost(host)) {
+            scoreDirector.beforeVariableChanged(vm, "host");
+            vm.setHost(null);
+            vm.setFixed(false);
+            scoreDirector.afterVariableChanged(vm, "host");
+        }
+
+        List<Host> hosts = new ArrayList<>(clusterState.getHosts());
+        hosts.remove(host);
+        scoreDirector.beforeProblemFactRemoved(host);
+        clusterState.setHosts(hosts);
+        scoreDirector.afterProblemFactRemoved(host);
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.changes;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Vm;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaplanner.core.impl.solver.ProblemFactChange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Problem fact change that removes a VM from the cluster while the solver is running.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class RemoveVmChange implements ProblemFactChange {
+
+    private final long vmId;
+
+    public RemoveVmChange(long vmId) {
+        this.vmId = vmId;
+    }
+
+    @Override
+    public void doChange(ScoreDirector scoreDirector) {
+        ClusterState clusterState = (ClusterState) scoreDirector.getWorkingSolution();
+        Vm vm = clusterState.getVmById(vmId);
+        if (vm == null) {
+            return; // The VM was already removed
+        }
+        List<Vm> vms = new ArrayList<>(clusterState.getVms());
+        vms.remove(vm);
+        scoreDirector.beforeEntityRemoved(vm);
+        clusterState.setVms(vms);
+        scoreDirector.afterEntityRemoved(vm);
+    }
+
+}
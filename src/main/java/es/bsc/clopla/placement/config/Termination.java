@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.config;
+
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+
+/**
+ * This class defines when the solver of the VM Placement problem should stop, in addition to the time limit in
+ * seconds of VmPlacementConfig.
+ * The time limit, the step limit, and the unimproved step limit are combined according to the composition style.
+ * The unimproved time limit and the target are checked each time that the solver finds a better solution, and
+ * they stop the solver as soon as one of them is met, regardless of the composition style.
+ * All the attributes are optional.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class Termination {
+
+    public enum CompositionStyle {
+        OR, // stop when any of the limits is reached
+        AND // stop when all the limits are reached
+    }
+
+    private final Long timeLimitMillis; // Replaces the time limit in seconds of VmPlacementConfig
+    private final Long unimprovedTimeLimitMillis;
+    private final Integer stepLimit;
+    private final Integer unimprovedStepLimit;
+    private final boolean feasibleTarget; // When set to true, stop as soon as a feasible solution is found
+    private final Integer maxMigrationsTarget; // Stop as soon as a solution needs at most this number of migrations
+    private final CompositionStyle compositionStyle;
+
+    public static class Builder {
+        private Long timeLimitMillis = null;
+        private Long unimprovedTimeLimitMillis = null;
+        private Integer stepLimit = null;
+        private Integer unimprovedStepLimit = null;
+        private boolean feasibleTarget = false;
+        private Integer maxMigrationsTarget = null;
+        private CompositionStyle compositionStyle = CompositionStyle.OR;
+
+        public Builder timeLimitMillis(long timeLimitMillis) {
+            checkNotNegative(timeLimitMillis, "time limit");
+            this.timeLimitMillis = timeLimitMillis;
+            return this;
+        }
+
+        public Builder unimprovedTimeLimitMillis(long unimprovedTimeLimitMillis) {
+            checkNotNegative(unimprovedTimeLimitMillis, "unimproved time limit");
+            this.unimprovedTimeLimitMillis = unimprovedTimeLimitMillis;
+            return this;
+        }
+
+        public Builder stepLimit(int stepLimit) {
+            checkNotNegative(stepLimit, "step limit");
+            this.stepLimit = stepLimit;
+            return this;
+        }
+
+        public Builder unimprovedStepLimit(int unimprovedStepLimit) {
+            checkNotNegative(unimprovedStepLimit, "unimproved step limit");
+            this.unimprovedStepLimit = unimprovedStepLimit;
+            return this;
+        }
+
+        public Builder feasibleTarget(boolean feasibleTarget) {
+            this.feasibleTarget = feasibleTarget;
+            return this;
+        }
+
+        public Builder maxMigrationsTarget(int maxMigrationsTarget) {
+            checkNotNegative(maxMigrationsTarget, "maximum number of migrations");
+            this.maxMigrationsTarget = maxMigrationsTarget;
+            return this;
+        }
+
+        public Builder compositionStyle(CompositionStyle compositionStyle) {
+            if (compositionStyle == null) {
+                throw new IllegalArgumentException("The composition style cannot be null");
+            }
+            this.compositionStyle = compositionStyle;
+            return this;
+        }
+
+        public Termination build() {
+            return new Termination(this);
+        }
+
+        private static void checkNotNegative(long value, String name) {
+            if (value < 0) {
+                throw new IllegalArgumentException("The " + name + " cannot be negative");
+            }
+        }
+    }
+
+    private Termination(Builder builder) {
+        timeLimitMillis = builder.timeLimitMillis;
+        unimprovedTimeLimitMillis = builder.unimprovedTimeLimitMillis;
+        stepLimit = builder.stepLimit;
+        unimprovedStepLimit = builder.unimprovedStepLimit;
+        feasibleTarget = builder.feasibleTarget;
+        maxMigrationsTarget = builder.maxMigrationsTarget;
+        compositionStyle = builder.compositionStyle;
+    }
+
+    public Long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    public Long getUnimprovedTimeLimitMillis() {
+        return unimprovedTimeLimitMillis;
+    }
+
+    public Integer getStepLimit() {
+        return stepLimit;
+    }
+
+    public Integer getUnimprovedStepLimit() {
+        return unimprovedStepLimit;
+    }
+
+    public boolean isFeasibleTarget() {
+        return feasibleTarget;
+    }
+
+    public Integer getMaxMigrationsTarget() {
+        return maxMigrationsTarget;
+    }
+
+    public CompositionStyle getCompositionStyle() {
+        return compositionStyle;
+    }
+
+    /**
+     * Checks whether the solver needs to be monitored to apply this termination. That is the case when there is
+     * an unimproved time limit or a target, because OptaPlanner cannot apply them by itself.
+     *
+     * @return true if the solver needs to be monitored, false otherwise
+     */
+    public boolean needsMonitoring() {
+        return unimprovedTimeLimitMillis != null || hasTarget();
+    }
+
+    public boolean hasTarget() {
+        return feasibleTarget || maxMigrationsTarget != null;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof Termination)) {
+            return false;
+        }
+        Termination other = (Termination) obj;
+        return new EqualsBuilder()
+                .append(timeLimitMillis, other.timeLimitMillis)
+                .append(unimprovedTimeLimitMillis, other.unimprovedTimeLimitMillis)
+                .append(stepLimit, other.stepLimit)
+                .append(unimprovedStepLimit, other.unimprovedStepLimit)
+                .append(feasibleTarget, other.feasibleTarget)
+                .append(maxMigrationsTarget, other.maxMigrationsTarget)
+                .append(compositionStyle, other.compositionStyle)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(timeLimitMillis)
+                .append(unimprovedTimeLimitMillis)
+                .append(stepLimit)
+                .append(unimprovedStepLimit)
+                .append(feasibleTarget)
+                .append(maxMigrationsTarget)
+                .append(compositionStyle)
+                .toHashCode();
+    }
+
+}
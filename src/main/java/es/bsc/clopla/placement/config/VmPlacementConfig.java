@@ -19,11 +19,17 @@
 
 package es.bsc.clopla.placement.config;
 
-import es.bsc.clopla.domain.ClusterState;
 import es.bsc.clopla.domain.ConstructionHeuristic;
+import es.bsc.clopla.modellers.CachedEnergyModeller;
 import es.bsc.clopla.modellers.EnergyModeller;
 import es.bsc.clopla.modellers.PriceModeller;
 import es.bsc.clopla.placement.config.localsearch.LocalSearch;
+import es.bsc.clopla.placement.config.localsearch.MoveType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * This class defines the configuration for the solver of the VM Placement problem.
@@ -38,13 +44,14 @@ public class VmPlacementConfig {
     private final LocalSearch localSearch;
     private final boolean vmsAreFixed; // When set to true, the VMs that are already assigned to a host should not be
                                        // moved to a different one
-    
-    // energyModeller, priceModeller, and initialClusterState are static variables because they are needed in 
-    // the score calculators and I cannot call their constructors directly. 
-    // I made them ThreadLocal to make the library thread-safe. Is there a cleaner solution?
-    public static ThreadLocal<EnergyModeller> energyModeller = new ThreadLocal<>();
-    public static ThreadLocal<PriceModeller> priceModeller = new ThreadLocal<>();
-    public static ThreadLocal<ClusterState> initialClusterState = new ThreadLocal<>();
+    private final boolean incrementalScoreCalculation; // When set to true, the score is calculated incrementally
+                                                       // if the policy supports it
+    private final Long randomSeed; // Seed of the random generator of the solver. Null to use the default one
+    private final Termination termination; // Termination criteria besides the time limit. Can be null
+    private final Set<MoveType> moveTypes; // Moves applied by the local search. Null to use the default ones
+    private final EnergyModeller energyModeller; // Cached, see getCachedEnergyModeller()
+    private final boolean energyModellerCacheResizable; // The cache was created with the default size
+    private final PriceModeller priceModeller;
 
     public static class Builder {
         // Required parameters
@@ -57,6 +64,11 @@ public class VmPlacementConfig {
         // Optional parameters
         private EnergyModeller energyModeller = null;
         private PriceModeller priceModeller = null;
+        private boolean incrementalScoreCalculation = false;
+        private Long randomSeed = null;
+        private Termination termination = null;
+        private Set<MoveType> moveTypes = null;
+        private Integer energyModellerCacheSize = null;
 
         public Builder(Policy policy, int timeLimitSeconds, ConstructionHeuristic constructionHeuristic,
                 LocalSearch localSearch, boolean vmsAreFixed) {
@@ -77,6 +89,46 @@ public class VmPlacementConfig {
             return this;
         }
 
+        public Builder incrementalScoreCalculation(boolean incrementalScoreCalculation) {
+            this.incrementalScoreCalculation = incrementalScoreCalculation;
+            return this;
+        }
+
+        public Builder randomSeed(long randomSeed) {
+            this.randomSeed = randomSeed;
+            return this;
+        }
+
+        public Builder termination(Termination termination) {
+            this.termination = termination;
+            return this;
+        }
+
+        public Builder moveTypes(MoveType... moveTypes) {
+            if (moveTypes.length == 0) {
+                throw new IllegalArgumentException("At least one type of move needs to be specified");
+            }
+            this.moveTypes = Collections.unmodifiableSet(EnumSet.copyOf(Arrays.asList(moveTypes)));
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of entries of the cache of power consumptions that the configuration creates for
+         * the energy modeller. By default, the cache can hold an entry for each host of the problem plus
+         * CachedEnergyModeller.DEFAULT_MAX_ENTRIES entries for the VM sets evaluated by the moves.
+         * It is ignored if the energy modeller is already a CachedEnergyModeller.
+         *
+         * @param energyModellerCacheSize the maximum number of entries
+         * @return the builder
+         */
+        public Builder energyModellerCacheSize(int energyModellerCacheSize) {
+            if (energyModellerCacheSize <= 0) {
+                throw new IllegalArgumentException("The cache of the energy modeller needs at least one entry");
+            }
+            this.energyModellerCacheSize = energyModellerCacheSize;
+            return this;
+        }
+
         public VmPlacementConfig build() {
             return new VmPlacementConfig(this);
         }
@@ -88,8 +140,14 @@ public class VmPlacementConfig {
         constructionHeuristic = builder.constructionHeuristic;
         localSearch = builder.localSearch;
         vmsAreFixed = builder.vmsAreFixed;
-        energyModeller.set(builder.energyModeller);
-        priceModeller.set(builder.priceModeller);
+        incrementalScoreCalculation = builder.incrementalScoreCalculation;
+        randomSeed = builder.randomSeed;
+        termination = builder.termination;
+        moveTypes = builder.moveTypes;
+        energyModeller = getCachedEnergyModeller(builder.energyModeller, builder.energyModellerCacheSize);
+        energyModellerCacheResizable = energyModeller != builder.energyModeller
+                && builder.energyModellerCacheSize == null;
+        priceModeller = builder.priceModeller;
     }
 
     public Policy getPolicy() {
@@ -112,4 +170,68 @@ public class VmPlacementConfig {
         return vmsAreFixed;
     }
 
+    public boolean incrementalScoreCalculation() {
+        return incrementalScoreCalculation;
+    }
+
+    public Long getRandomSeed() {
+        return randomSeed;
+    }
+
+    public Termination getTermination() {
+        return termination;
+    }
+
+    public Set<MoveType> getMoveTypes() {
+        return moveTypes;
+    }
+
+    public EnergyModeller getEnergyModeller() {
+        return energyModeller;
+    }
+
+    public PriceModeller getPriceModeller() {
+        return priceModeller;
+    }
+
+    /**
+     * Returns the ratio of queries to the energy modeller that were answered from its cache, counting all the
+     * problems solved with this configuration.
+     *
+     * @return the hit rate, or 0 if there is no energy modeller or it has not been queried yet
+     */
+    public double getEnergyModellerCacheHitRate() {
+        return energyModeller == null ? 0 : ((CachedEnergyModeller) energyModeller).getHitRate();
+    }
+
+    /**
+     * Makes the cache of the energy modeller big enough for a problem with the given number of hosts, unless its
+     * size was set in the builder. The placement problems call it before solving, so the power consumption of the
+     * hosts of the current solution is not evicted by the VM sets that the moves evaluate.
+     *
+     * @param hostsCount the number of hosts of the problem
+     */
+    public void ensureEnergyModellerCacheFits(int hostsCount) {
+        if (energyModellerCacheResizable) {
+            ((CachedEnergyModeller) energyModeller)
+                    .ensureMaxEntries(hostsCount + CachedEnergyModeller.DEFAULT_MAX_ENTRIES);
+        }
+    }
+
+    /**
+     * Returns an energy modeller that caches the results of the given one, so the energy policy does not query
+     * the modeller again for the hosts whose VMs have not changed.
+     *
+     * @param energyModeller the energy modeller
+     * @param cacheSize the maximum number of entries of the cache. Null to use the default one
+     * @return the cached energy modeller, or null if no energy modeller was given
+     */
+    private static EnergyModeller getCachedEnergyModeller(EnergyModeller energyModeller, Integer cacheSize) {
+        if (energyModeller == null || energyModeller instanceof CachedEnergyModeller) {
+            return energyModeller;
+        }
+        return cacheSize == null ?
+                new CachedEnergyModeller(energyModeller) : new CachedEnergyModeller(energyModeller, cacheSize);
+    }
+
 }
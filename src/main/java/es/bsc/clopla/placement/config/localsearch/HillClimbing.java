@@ -44,4 +44,14 @@ public class HillClimbing extends LocalSearch {
         return result;
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        return baseEquals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return baseHashCode();
+    }
+
 }
@@ -19,11 +19,15 @@
 
 package es.bsc.clopla.placement.config.localsearch;
 
+import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.optaplanner.core.config.localsearch.decider.acceptor.AcceptorConfig;
 import org.optaplanner.core.config.localsearch.decider.forager.ForagerConfig;
 
 /**
  * Local search algorithm.
+ * Two built-in local search algorithms are equal when they are of the same type and have the same parameters. This
+ * allows using them as part of the key of the cache of solver factories. Subclasses defined outside this package use
+ * identity equality unless they override equals() and hashCode() to compare all their parameters.
  *
  * @author David Ortiz (david.ortiz@bsc.es)
  */
@@ -39,4 +43,35 @@ public abstract class LocalSearch {
         return result;
     }
 
+    /**
+     * Checks whether an object is a local search of the same type with the same accepted count limit.
+     * The built-in algorithms implement equals() with it, and then compare their own parameters. It is not used by
+     * LocalSearch itself: other subclasses might have parameters that it does not know about, so unless they
+     * override equals() and hashCode(), they are only equal to themselves and never share a solver factory.
+     *
+     * @param obj the object
+     * @return true if the object is of the same type and has the same accepted count limit, false otherwise
+     */
+    boolean baseEquals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        return acceptedCountLimit == ((LocalSearch) obj).acceptedCountLimit;
+    }
+
+    /**
+     * Returns the hash code of the type and the accepted count limit, consistent with baseEquals().
+     *
+     * @return the hash code
+     */
+    int baseHashCode() {
+        return new HashCodeBuilder()
+                .append(getClass().getName())
+                .append(acceptedCountLimit)
+                .toHashCode();
+    }
+
 }
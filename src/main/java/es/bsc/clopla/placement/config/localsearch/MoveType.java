@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.config.localsearch;
+
+/**
+ * Enumeration of the types of moves that the local search heuristics can apply.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public enum MoveType {
+
+    CHANGE("Change"), // Move a VM to a different host
+    SWAP("Swap"), // Exchange the hosts of two VMs
+    PILLAR_SWAP("Pillar Swap"), // Exchange all the VMs deployed in two hosts
+    APP_CHANGE("App Change"); // Move all the VMs of an application to the same host
+
+    private final String name;
+
+    private MoveType(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
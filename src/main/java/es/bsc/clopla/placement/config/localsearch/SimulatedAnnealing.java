@@ -19,6 +19,8 @@
 
 package es.bsc.clopla.placement.config.localsearch;
 
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.optaplanner.core.config.localsearch.decider.acceptor.AcceptorConfig;
 
 /**
@@ -48,4 +50,25 @@ public class SimulatedAnnealing extends LocalSearch {
         return Integer.toString(initialHardTemp) + "hard/" + Integer.toString(initialSoftTemp) + "soft";
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        if (!baseEquals(obj)) {
+            return false;
+        }
+        SimulatedAnnealing other = (SimulatedAnnealing) obj;
+        return new EqualsBuilder()
+                .append(initialHardTemp, other.initialHardTemp)
+                .append(initialSoftTemp, other.initialSoftTemp)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .appendSuper(baseHashCode())
+                .append(initialHardTemp)
+                .append(initialSoftTemp)
+                .toHashCode();
+    }
+
 }
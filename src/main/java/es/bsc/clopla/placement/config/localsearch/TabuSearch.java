@@ -19,6 +19,8 @@
 
 package es.bsc.clopla.placement.config.localsearch;
 
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.optaplanner.core.config.localsearch.decider.acceptor.AcceptorConfig;
 
 /**
@@ -42,4 +44,23 @@ public class TabuSearch extends LocalSearch {
         return result;
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        if (!baseEquals(obj)) {
+            return false;
+        }
+        TabuSearch other = (TabuSearch) obj;
+        return new EqualsBuilder()
+                .append(entityTabuSize, other.entityTabuSize)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .appendSuper(baseHashCode())
+                .append(entityTabuSize)
+                .toHashCode();
+    }
+
 }
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.moves;
+
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.optaplanner.core.impl.move.Move;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Move that changes the host of several VMs at once. It is used to move all the VMs of an application to the same
+ * host, which single VM moves cannot do when the cluster is tightly packed, because each intermediate step would
+ * overload a host or break the group of the application.
+ * The moves of an application share the same list of VMs, so each move only adds its destination host. The hosts
+ * where the VMs come from are only stored by the undo move, which is created when the move is about to be done.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class AppChangeMove implements Move {
+
+    private final List<Vm> vms;
+    private final Host toHost;
+
+    /**
+     * Class constructor.
+     *
+     * @param vms the VMs of the application. The list is not copied, so the moves of an application can share it.
+     *            It should not be modified afterwards
+     * @param toHost the host where all the VMs are moved to
+     */
+    public AppChangeMove(List<Vm> vms, Host toHost) {
+        this.vms = vms;
+        this.toHost = toHost;
+    }
+
+    @Override
+    public boolean isMoveDoable(ScoreDirector scoreDirector) {
+        for (Vm vm: vms) {
+            if (vm.getHost() != toHost) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Move createUndoMove(ScoreDirector scoreDirector) {
+        return new UndoAppChangeMove(vms, getHosts(vms));
+    }
+
+    @Override
+    public void doMove(ScoreDirector scoreDirector) {
+        for (Vm vm: vms) {
+            moveVm(scoreDirector, vm, toHost);
+        }
+    }
+
+    @Override
+    public Collection<? extends Object> getPlanningEntities() {
+        return Collections.unmodifiableList(vms);
+    }
+
+    @Override
+    public Collection<? extends Object> getPlanningValues() {
+        return Collections.singletonList(toHost);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof AppChangeMove)) {
+            return false;
+        }
+        AppChangeMove other = (AppChangeMove) obj;
+        return new EqualsBuilder()
+                .append(vms, other.vms)
+                .append(toHost, other.toHost)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(vms)
+                .append(toHost)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return vms + " => " + toHost;
+    }
+
+    private static List<Host> getHosts(List<Vm> vms) {
+        List<Host> result = new ArrayList<>(vms.size());
+        for (Vm vm: vms) {
+            result.add(vm.getHost());
+        }
+        return result;
+    }
+
+    private static void moveVm(ScoreDirector scoreDirector, Vm vm, Host host) {
+        scoreDirector.beforeVariableChanged(vm, "host");
+        vm.setHost(host);
+        scoreDirector.afterVariableChanged(vm, "host");
+    }
+
+    /**
+     * Move that puts back the VMs of an AppChangeMove in the hosts where they were.
+     */
+    private static class UndoAppChangeMove implements Move {
+
+        private final List<Vm> vms;
+        private final List<Host> toHosts; // toHosts.get(i) is the destination of vms.get(i)
+
+        public UndoAppChangeMove(List<Vm> vms, List<Host> toHosts) {
+            this.vms = vms;
+            this.toHosts = toHosts;
+        }
+
+        @Override
+        public boolean isMoveDoable(ScoreDirector scoreDirector) {
+            return true;
+        }
+
+        @Override
+        public Move createUndoMove(ScoreDirector scoreDirector) {
+            return new UndoAppChangeMove(vms, getHosts(vms));
+        }
+
+        @Override
+        public void doMove(ScoreDirector scoreDirector) {
+            for (int i = 0; i < vms.size(); ++i) {
+                moveVm(scoreDirector, vms.get(i), toHosts.get(i));
+            }
+        }
+
+        @Override
+        public Collection<? extends Object> getPlanningEntities() {
+            return Collections.unmodifiableList(vms);
+        }
+
+        @Override
+        public Collection<? extends Object> getPlanningValues() {
+            return new HashSet<>(toHosts);
+        }
+
+        @Override
+        public String toString() {
+            return vms + " => " + toHosts;
+        }
+
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.moves;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import org.optaplanner.core.impl.heuristic.selector.move.factory.MoveListFactory;
+import org.optaplanner.core.impl.move.Move;
+import org.optaplanner.core.impl.solution.Solution;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Factory of the moves that move all the VMs of an application to the same host.
+ * VMs without an application and fixed VMs are not moved. Applications with only one movable VM are ignored,
+ * because the change moves already cover them. There are no moves to the hosts that do not have enough CPUs, RAM,
+ * or disk for all the movable VMs of the application, because those moves always overload the host.
+ * All the moves of an application share the same unmodifiable list of its VMs.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class AppChangeMoveListFactory implements MoveListFactory {
+
+    @Override
+    public List<Move> createMoveList(Solution solution) {
+        ClusterState clusterState = (ClusterState) solution;
+        List<Move> result = new ArrayList<>();
+        for (List<Vm> appVms: getMovableVmsByApp(clusterState).values()) {
+            if (appVms.size() > 1) {
+                List<Vm> sharedAppVms = Collections.unmodifiableList(appVms);
+                for (Host host: clusterState.getHosts()) {
+                    if (host.hasCapacityFor(sharedAppVms)) {
+                        result.add(new AppChangeMove(sharedAppVms, host));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private Map<String, List<Vm>> getMovableVmsByApp(ClusterState clusterState) {
+        Map<String, List<Vm>> result = new LinkedHashMap<>(); // Keeps the order of the moves deterministic
+        for (Vm vm: clusterState.getVms()) {
+            if (vm.getAppId() != null && !vm.isFixed()) {
+                List<Vm> appVms = result.get(vm.getAppId());
+                if (appVms == null) {
+                    appVms = new ArrayList<>();
+                    result.put(vm.getAppId(), appVms);
+                }
+                appVms.add(vm);
+            }
+        }
+        return result;
+    }
+
+}
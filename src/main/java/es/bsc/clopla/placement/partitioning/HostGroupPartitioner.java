@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.partitioning;
+
+import es.bsc.clopla.domain.Host;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Partitioner that creates a partition for each group of hosts, for example, for each rack or each availability
+ * zone. The hosts that do not belong to any group are placed in a partition of their own.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class HostGroupPartitioner implements HostPartitioner {
+
+    private final Map<Long, String> groupOfHosts;
+
+    /**
+     * Class constructor.
+     *
+     * @param groupOfHosts map that contains the group of each host (host ID -> group name)
+     */
+    public HostGroupPartitioner(Map<Long, String> groupOfHosts) {
+        this.groupOfHosts = new HashMap<>(groupOfHosts);
+    }
+
+    @Override
+    public List<List<Host>> partition(List<Host> hosts) {
+        // The partitions are returned in the order in which their first host appears
+        Map<String, List<Host>> partitions = new LinkedHashMap<>();
+        for (Host host: hosts) {
+            String group = groupOfHosts.get(host.getId());
+            List<Host> partition = partitions.get(group);
+            if (partition == null) {
+                partition = new ArrayList<>();
+                partitions.put(group, partition);
+            }
+            partition.add(host);
+        }
+        return new ArrayList<>(partitions.values());
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.partitioning;
+
+import es.bsc.clopla.domain.Host;
+
+import java.util.List;
+
+/**
+ * Splits the hosts of a cluster into groups that can be planned independently.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public interface HostPartitioner {
+
+    /**
+     * Splits a list of hosts into partitions. Each host needs to be in exactly one partition.
+     *
+     * @param hosts the hosts
+     * @return the partitions. None of them should be empty
+     */
+    List<List<Host>> partition(List<Host> hosts);
+
+}
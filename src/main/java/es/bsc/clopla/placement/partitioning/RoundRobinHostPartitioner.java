@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.partitioning;
+
+import es.bsc.clopla.domain.Host;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Partitioner that deals the hosts to a fixed number of partitions, one host to each partition in turn.
+ * The hosts keep their relative order inside each partition.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class RoundRobinHostPartitioner implements HostPartitioner {
+
+    private final int numberOfPartitions;
+
+    public RoundRobinHostPartitioner(int numberOfPartitions) {
+        if (numberOfPartitions < 1) {
+            throw new IllegalArgumentException("The number of partitions needs to be at least 1");
+        }
+        this.numberOfPartitions = numberOfPartitions;
+    }
+
+    @Override
+    public List<List<Host>> partition(List<Host> hosts) {
+        List<List<Host>> result = new ArrayList<>();
+        for (int i = 0; i < Math.min(numberOfPartitions, hosts.size()); ++i) {
+            result.add(new ArrayList<Host>());
+        }
+        for (int i = 0; i < hosts.size(); ++i) {
+            result.get(i % result.size()).add(hosts.get(i));
+        }
+        return result;
+    }
+
+}
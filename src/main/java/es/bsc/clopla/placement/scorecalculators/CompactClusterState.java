@@ -0,0 +1,611 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package es.bsc.clopla.placement.scorecalculators;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * This class is a compact representation of a cluster state that the score calculators evaluate against.
+ * The demands of the VMs, the capacities of the hosts, the host assigned to each VM, and the resources used in each
+ * host are kept in primitive arrays, where VMs and hosts are identified by their position in the lists of the
+ * cluster state. This avoids walking lists of objects and allocating maps each time that a score is calculated.
+ * <p>
+ * The attributes of the VMs and hosts are read once, when the compact state is created. After that, refresh()
+ * only needs to read the host of each VM, as long as the lists of VMs and hosts have not changed. The incremental
+ * score calculators do not even need that: they update the assignment of one VM at a time.
+ * VMs assigned to a host that is not part of the cluster state are treated as unassigned.
+ * The state also tracks the hosts whose set of VMs has changed, so the score calculators that keep a value per host,
+ * like the power consumption, only need to recalculate it for those hosts. All the hosts start as changed.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+final class CompactClusterState {
+
+    static final int UNASSIGNED = -1;
+    private static final int NOT_IN_INITIAL_STATE = -2; // The VM does not count for the migrations
+    private static final int REMOVED_HOST = -3; // The initial host of the VM is no longer part of the state
+
+    private final List<Vm> vms; // The lists that the state was created from
+    private final List<Host> hosts;
+    private List<Vm> currentVms; // The VMs of the last cluster state that the state was created from or refreshed with
+    private final ClusterState initialClusterState; // null if the migrations are not counted
+    private final Map<Host, Integer> hostIndexes = new IdentityHashMap<>();
+    private final Map<Vm, Integer> vmIndexes = new IdentityHashMap<>();
+
+    // Hosts
+    private final int hostsCount;
+    private final int[] hostNcpus;
+    private final double[] hostRamMb;
+    private final double[] hostDiskGb;
+    private final boolean[] hostInitiallyOff;
+    private final int[] ncpusUsed;
+    private final int[] ramMbUsed;
+    private final int[] diskGbUsed;
+    private final int[] vmsCounts;
+    private final boolean[] changedHosts; // Hosts whose VMs have changed since the last clearChangedHosts()
+
+    // VMs
+    private final int vmsCount;
+    private final long[] vmIds;
+    private final int[] vmNcpus;
+    private final int[] vmRamMb;
+    private final int[] vmDiskGb;
+    private final int[] vmApps; // Index of the app of each VM. UNASSIGNED if the VM does not belong to an app
+    private final int[] vmInitialHosts;
+    private final int[] assignment; // Index of the host of each VM
+
+    // Apps
+    private final int appsCount;
+    private final int[] vmsOfAppsInHost; // Scratch space used to count the VMs of each app in a host
+
+    // VMs grouped by host. Only rebuilt when needed, see groupVmsByHost()
+    private final int[] firstVmOfHosts;
+    private final int[] vmsByHost;
+    private boolean vmsByHostOutdated = true;
+    private final VmsOfHost vmsOfHost = new VmsOfHost();
+
+    /**
+     * Class constructor.
+     *
+     * @param clusterState the cluster state
+     */
+    CompactClusterState(ClusterState clusterState) {
+        hosts = clusterState.getHosts();
+        initialClusterState = getInitialClusterState(clusterState);
+
+        hostsCount = hosts.size();
+        hostNcpus = new int[hostsCount];
+        hostRamMb = new double[hostsCount];
+        hostDiskGb = new double[hostsCount];
+        hostInitiallyOff = new boolean[hostsCount];
+        ncpusUsed = new int[hostsCount];
+        ramMbUsed = new int[hostsCount];
+        diskGbUsed = new int[hostsCount];
+        vmsCounts = new int[hostsCount];
+        changedHosts = new boolean[hostsCount];
+        Arrays.fill(changedHosts, true);
+        firstVmOfHosts = new int[hostsCount + 1];
+        Map<Long, Integer> hostIndexesById = new HashMap<>();
+        for (int i = 0; i < hostsCount; ++i) {
+            Host host = hosts.get(i);
+            hostIndexes.put(host, i);
+            hostIndexesById.put(host.getId(), i);
+            hostNcpus[i] = host.getNcpus();
+            hostRamMb[i] = host.getRamMb();
+            hostDiskGb[i] = host.getDiskGb();
+            hostInitiallyOff[i] = host.wasOffInitiallly();
+        }
+
+        vms = clusterState.getVms();
+        currentVms = vms;
+        vmsCount = vms.size();
+        vmIds = new long[vmsCount];
+        vmNcpus = new int[vmsCount];
+        vmRamMb = new int[vmsCount];
+        vmDiskGb = new int[vmsCount];
+        vmApps = new int[vmsCount];
+        vmInitialHosts = new int[vmsCount];
+        assignment = new int[vmsCount];
+        vmsByHost = new int[vmsCount];
+        Map<String, Integer> appIndexes = new HashMap<>();
+        for (int i = 0; i < vmsCount; ++i) {
+            Vm vm = vms.get(i);
+            vmIndexes.put(vm, i);
+            vmIds[i] = vm.getId();
+            vmNcpus[i] = vm.getNcpus();
+            vmRamMb[i] = vm.getRamMb();
+            vmDiskGb[i] = vm.getDiskGb();
+            vmApps[i] = getAppIndex(vm.getAppId(), appIndexes);
+            vmInitialHosts[i] = getInitialHostIndex(vm, hostIndexesById);
+            assignment[i] = UNASSIGNED;
+        }
+        appsCount = appIndexes.size();
+        vmsOfAppsInHost = new int[appsCount];
+
+        for (int i = 0; i < vmsCount; ++i) {
+            assign(i, getHostIndex(vms.get(i).getHost()));
+        }
+    }
+
+    /**
+     * Returns a compact state that is up to date with a cluster state. The given compact state is refreshed and
+     * returned when it was created from the same lists of VMs and hosts. Otherwise, a new one is created.
+     *
+     * @param compactClusterState the compact state. It can be null
+     * @param clusterState the cluster state
+     * @return the compact state
+     */
+    static CompactClusterState refresh(CompactClusterState compactClusterState, ClusterState clusterState) {
+        if (compactClusterState == null || !compactClusterState.refresh(clusterState)) {
+            return new CompactClusterState(clusterState);
+        }
+        return compactClusterState;
+    }
+
+    /**
+     * Reads again the host of each VM of a cluster state. This is only possible when the cluster state has the
+     * same VMs and hosts as the one that this compact state was created from. Only the VMs whose host has changed
+     * are reassigned, so only their hosts are marked as changed.
+     * The clones of a cluster state have different instances of the VMs, but they can be refreshed too. However,
+     * getVmIndex() only knows the instances of the cluster state that the compact state was created from.
+     *
+     * @param clusterState the cluster state
+     * @return true if the compact state was refreshed, false if it does not correspond to the cluster state
+     */
+    boolean refresh(ClusterState clusterState) {
+        List<Vm> clusterStateVms = clusterState.getVms();
+        if (clusterState.getHosts() != hosts || hosts.size() != hostsCount || clusterStateVms.size() != vmsCount
+                || getInitialClusterState(clusterState) != initialClusterState) {
+            return false;
+        }
+        for (int i = 0; i < vmsCount; ++i) {
+            if (clusterStateVms.get(i).getId() != vmIds[i]) {
+                return false;
+            }
+        }
+        for (int i = 0; i < vmsCount; ++i) {
+            int host = getHostIndex(clusterStateVms.get(i).getHost());
+            if (host != assignment[i]) {
+                assign(i, host);
+            }
+        }
+        currentVms = clusterStateVms;
+        return true;
+    }
+
+    /**
+     * Checks whether this compact state was created from the current lists of VMs and hosts of a cluster state.
+     * When that is not the case, the cluster state has had VMs or hosts added or removed since then.
+     *
+     * @param clusterState the cluster state
+     * @return true if the compact state was created from the lists of the cluster state, false otherwise
+     */
+    boolean isCreatedFrom(ClusterState clusterState) {
+        return clusterState.getVms() == vms && vms.size() == vmsCount
+                && clusterState.getHosts() == hosts && hosts.size() == hostsCount;
+    }
+
+    /**
+     * Assigns a VM to a host. If the VM was assigned to another host, it is unassigned from it first.
+     *
+     * @param vm the index of the VM
+     * @param host the index of the host. UNASSIGNED to unassign the VM
+     */
+    void assign(int vm, int host) {
+        unassign(vm);
+        if (host != UNASSIGNED) {
+            ncpusUsed[host] += vmNcpus[vm];
+            ramMbUsed[host] += vmRamMb[vm];
+            diskGbUsed[host] += vmDiskGb[vm];
+            ++vmsCounts[host];
+            assignment[vm] = host;
+            changedHosts[host] = true;
+            vmsByHostOutdated = true;
+        }
+    }
+
+    /**
+     * Unassigns a VM from its host.
+     *
+     * @param vm the index of the VM
+     */
+    void unassign(int vm) {
+        int host = assignment[vm];
+        if (host != UNASSIGNED) {
+            ncpusUsed[host] -= vmNcpus[vm];
+            ramMbUsed[host] -= vmRamMb[vm];
+            diskGbUsed[host] -= vmDiskGb[vm];
+            --vmsCounts[host];
+            assignment[vm] = UNASSIGNED;
+            changedHosts[host] = true;
+            vmsByHostOutdated = true;
+        }
+    }
+
+    /**
+     * Returns the index of a VM of the cluster state that this compact state was created from.
+     *
+     * @param vm the VM
+     * @return the index, or UNASSIGNED if the VM was not part of the cluster state
+     */
+    int getVmIndex(Vm vm) {
+        Integer result = vmIndexes.get(vm);
+        return result != null ? result : UNASSIGNED;
+    }
+
+    /**
+     * Returns the index of a host.
+     *
+     * @param host the host. It can be null
+     * @return the index, or UNASSIGNED if the host is null or is not part of the cluster state
+     */
+    int getHostIndex(Host host) {
+        Integer result = host == null ? null : hostIndexes.get(host);
+        return result != null ? result : UNASSIGNED;
+    }
+
+    /**
+     * Returns the overcapacity score of the cluster. It is calculated as in
+     * ScoreCalculatorCommon.getClusterOverCapacityScore.
+     *
+     * @return the overcapacity score
+     */
+    double getOverCapacityScore() {
+        double result = 0;
+        for (int i = 0; i < hostsCount; ++i) {
+            result += getOverCapacityScore(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the overcapacity score of a host. It is calculated as in Host.getOverCapacityScore.
+     *
+     * @param host the index of the host
+     * @return the overcapacity score
+     */
+    double getOverCapacityScore(int host) {
+        double cpuScore = ((hostNcpus[host] - ncpusUsed[host]) < 0) ?
+                - (ncpusUsed[host]/(double) hostNcpus[host]) : 0.0;
+        double ramScore = ((hostRamMb[host] - ramMbUsed[host]) < 0) ? - (ramMbUsed[host]/hostRamMb[host]) : 0.0;
+        double diskScore = ((hostDiskGb[host] - diskGbUsed[host]) < 0) ?
+                - (diskGbUsed[host]/hostDiskGb[host]) : 0.0;
+        return cpuScore + ramScore + diskScore;
+    }
+
+    /**
+     * Counts the hosts that do not have any VMs assigned.
+     *
+     * @return the number of idle hosts
+     */
+    int countIdleHosts() {
+        int result = 0;
+        for (int i = 0; i < hostsCount; ++i) {
+            if (vmsCounts[i] == 0) {
+                ++result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the hosts that were off and do not have any VMs assigned.
+     *
+     * @return the number of hosts that are off
+     */
+    int countOffHosts() {
+        int result = 0;
+        for (int i = 0; i < hostsCount; ++i) {
+            if (hostInitiallyOff[i] && vmsCounts[i] == 0) {
+                ++result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the total unused CPU % of the cluster. It is calculated as in
+     * ClusterState.calculateCumulativeUnusedCpuPerc.
+     *
+     * @return the total unused CPU %
+     */
+    int calculateCumulativeUnusedCpuPerc() {
+        double cumulativeUnusedCpuPerc = 0;
+        for (int i = 0; i < hostsCount; ++i) {
+            cumulativeUnusedCpuPerc += getUnusedCpuRatio(i);
+        }
+        return (int) (cumulativeUnusedCpuPerc*100);
+    }
+
+    /**
+     * Returns the unused CPU ratio of a host, or 0 if the host is overbooked.
+     *
+     * @param host the index of the host
+     * @return the unused CPU ratio
+     */
+    double getUnusedCpuRatio(int host) {
+        double unusedRatio = (double) (hostNcpus[host] - ncpusUsed[host])/(hostNcpus[host]);
+        return unusedRatio > 0 ? unusedRatio : 0;
+    }
+
+    /**
+     * Returns the std dev of the cpu % assigned per host. It is calculated as in
+     * ClusterState.calculateStdDevCpuPercUsedPerHost.
+     *
+     * @return the std dev
+     */
+    double calculateStdDevCpuPercUsedPerHost() {
+        double cpuRatioSum = 0;
+        for (int i = 0; i < hostsCount; ++i) {
+            cpuRatioSum += getCpuRatio(i);
+        }
+        double avgCpuRatio = cpuRatioSum/hostsCount;
+        double variance = 0;
+        for (int i = 0; i < hostsCount; ++i) {
+            variance += Math.pow(avgCpuRatio - getCpuRatio(i), 2);
+        }
+        return Math.sqrt(variance/hostsCount);
+    }
+
+    /**
+     * Returns the ratio between the CPUs assigned in a host and the CPUs of the host.
+     *
+     * @param host the index of the host
+     * @return the CPU ratio
+     */
+    double getCpuRatio(int host) {
+        return ncpusUsed[host]/(hostNcpus[host]/1.0);
+    }
+
+    /**
+     * Counts the VMs that are not in the host that they were in the initial state. The VMs that were not part of
+     * the initial state are not taken into account.
+     *
+     * @return the number of migrations needed
+     */
+    int countVmMigrationsNeeded() {
+        int result = 0;
+        for (int i = 0; i < vmsCount; ++i) {
+            if (needsMigration(i)) {
+                ++result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether a VM is not in the host that it was in the initial state.
+     *
+     * @param vm the index of the VM
+     * @return true if the VM needs to be migrated, false otherwise
+     */
+    boolean needsMigration(int vm) {
+        return vmInitialHosts[vm] != NOT_IN_INITIAL_STATE && vmInitialHosts[vm] != assignment[vm];
+    }
+
+    /**
+     * For each VM, sums the number of VMs that are deployed in the same host and belong to the same app.
+     * When a host has n VMs of an app, those VMs contribute n*(n-1) to the result.
+     *
+     * @return the sum
+     */
+    int countSameAppVmPairs() {
+        groupVmsByHost();
+        int result = 0;
+        for (int host = 0; host < hostsCount; ++host) {
+            for (int i = firstVmOfHosts[host]; i < firstVmOfHosts[host + 1]; ++i) {
+                int app = vmApps[vmsByHost[i]];
+                if (app != UNASSIGNED) {
+                    result += 2*vmsOfAppsInHost[app]; // (n + 1)*n - n*(n - 1)
+                    ++vmsOfAppsInHost[app];
+                }
+            }
+            for (int i = firstVmOfHosts[host]; i < firstVmOfHosts[host + 1]; ++i) {
+                int app = vmApps[vmsByHost[i]];
+                if (app != UNASSIGNED) {
+                    vmsOfAppsInHost[app] = 0;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the VMs assigned to a host, in the same order as in the cluster state. The VMs are the instances of the
+     * last cluster state that this compact state was created from or refreshed with.
+     * The list is a view that is reused by the next call to this function, so it is only valid until then. This
+     * avoids creating a list for each host each time that a score is calculated.
+     *
+     * @param host the index of the host
+     * @return the VMs of the host
+     */
+    List<Vm> getVmsOfHost(int host) {
+        groupVmsByHost();
+        vmsOfHost.from = firstVmOfHosts[host];
+        vmsOfHost.to = firstVmOfHosts[host + 1];
+        return vmsOfHost;
+    }
+
+    /**
+     * Checks whether the VMs of a host have changed since the last call to clearChangedHosts(), or since the
+     * compact state was created. A host is marked as changed even if its VMs end up being the same ones.
+     *
+     * @param host the index of the host
+     * @return true if the host has changed, false otherwise
+     */
+    boolean hostChanged(int host) {
+        return changedHosts[host];
+    }
+
+    /**
+     * Marks all the hosts as not changed.
+     */
+    void clearChangedHosts() {
+        Arrays.fill(changedHosts, false);
+    }
+
+    int getHostsCount() {
+        return hostsCount;
+    }
+
+    int getAppsCount() {
+        return appsCount;
+    }
+
+    int getHostNcpus(int host) {
+        return hostNcpus[host];
+    }
+
+    boolean wasOffInitially(int host) {
+        return hostInitiallyOff[host];
+    }
+
+    int getNcpusUsed(int host) {
+        return ncpusUsed[host];
+    }
+
+    int getVmsCount(int host) {
+        return vmsCounts[host];
+    }
+
+    int getApp(int vm) {
+        return vmApps[vm];
+    }
+
+    int getHost(int vm) {
+        return assignment[vm];
+    }
+
+    /**
+     * Returns the CPUs used in each host. The array is not copied, so it must not be modified, and its content
+     * changes each time that the compact state changes.
+     *
+     * @return the CPUs used in each host
+     */
+    int[] getNcpusUsed() {
+        return ncpusUsed;
+    }
+
+    /**
+     * Returns the RAM (MB) used in each host. See getNcpusUsed().
+     *
+     * @return the RAM used in each host
+     */
+    int[] getRamMbUsed() {
+        return ramMbUsed;
+    }
+
+    /**
+     * Returns the disk (GB) used in each host. See getNcpusUsed().
+     *
+     * @return the disk used in each host
+     */
+    int[] getDiskGbUsed() {
+        return diskGbUsed;
+    }
+
+    /**
+     * Sorts the indexes of the VMs by host with a counting sort, so the VMs of host h are
+     * vmsByHost[firstVmOfHosts[h]] to vmsByHost[firstVmOfHosts[h + 1] - 1].
+     */
+    private void groupVmsByHost() {
+        if (!vmsByHostOutdated) {
+            return;
+        }
+        firstVmOfHosts[0] = 0;
+        for (int i = 0; i < hostsCount; ++i) {
+            firstVmOfHosts[i + 1] = firstVmOfHosts[i] + vmsCounts[i];
+        }
+        for (int i = 0; i < vmsCount; ++i) {
+            int host = assignment[i];
+            if (host != UNASSIGNED) {
+                vmsByHost[firstVmOfHosts[host]++] = i;
+            }
+        }
+        // Each position was moved to the start of the next host, so shift them back
+        for (int i = hostsCount; i > 0; --i) {
+            firstVmOfHosts[i] = firstVmOfHosts[i - 1];
+        }
+        firstVmOfHosts[0] = 0;
+        vmsByHostOutdated = false;
+    }
+
+    private int getInitialHostIndex(Vm vm, Map<Long, Integer> hostIndexesById) {
+        Vm initialVm = initialClusterState == null ? null : initialClusterState.getVmById(vm.getId());
+        if (initialVm == null) {
+            return NOT_IN_INITIAL_STATE;
+        }
+        if (initialVm.getHost() == null) {
+            return UNASSIGNED;
+        }
+        Integer result = hostIndexesById.get(initialVm.getHost().getId());
+        return result != null ? result : REMOVED_HOST;
+    }
+
+    private static int getAppIndex(String appId, Map<String, Integer> appIndexes) {
+        if (appId == null) {
+            return UNASSIGNED;
+        }
+        Integer result = appIndexes.get(appId);
+        if (result == null) {
+            result = appIndexes.size();
+            appIndexes.put(appId, result);
+        }
+        return result;
+    }
+
+    /**
+     * View of the VMs of a host: vmsByHost[from] to vmsByHost[to - 1].
+     */
+    private final class VmsOfHost extends AbstractList<Vm> implements RandomAccess {
+
+        private int from;
+        private int to;
+
+        @Override
+        public Vm get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + (to - from));
+            }
+            return currentVms.get(vmsByHost[from + index]);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+    }
+
+    private static ClusterState getInitialClusterState(ClusterState clusterState) {
+        return clusterState.getPlacementContext() == null ?
+                null : clusterState.getPlacementContext().getInitialClusterState();
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package es.bsc.clopla.placement.scorecalculators;
+
+import java.util.Arrays;
+
+/**
+ * This class counts the VMs of each app that are assigned to each host. Hosts and apps are identified by their
+ * index in a compact cluster state.
+ * A dense matrix of hosts and apps would not fit in memory in large clusters with many apps, and most of its
+ * elements would be 0, so the counts are kept in a hash table with open addressing over primitive arrays. Only the
+ * pairs of host and app with at least one VM are stored, and updating a count does not allocate any objects.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+final class HostAppVmCounts {
+
+    private static final long EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 16; // Needs to be a power of 2
+
+    private final int appsCount;
+    private long[] keys;
+    private int[] counts;
+    private int size = 0;
+
+    /**
+     * Class constructor.
+     *
+     * @param appsCount the number of apps
+     */
+    HostAppVmCounts(int appsCount) {
+        this.appsCount = appsCount;
+        keys = new long[INITIAL_CAPACITY];
+        Arrays.fill(keys, EMPTY);
+        counts = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Returns the number of VMs of an app that are assigned to a host.
+     *
+     * @param host the index of the host
+     * @param app the index of the app
+     * @return the number of VMs
+     */
+    int get(int host, int app) {
+        long key = getKey(host, app);
+        for (int i = getSlot(key); keys[i] != EMPTY; i = (i + 1) & (keys.length - 1)) {
+            if (keys[i] == key) {
+                return counts[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Increments the number of VMs of an app that are assigned to a host.
+     *
+     * @param host the index of the host
+     * @param app the index of the app
+     * @return the number of VMs before incrementing it
+     */
+    int increment(int host, int app) {
+        long key = getKey(host, app);
+        int i = getSlot(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return counts[i]++;
+            }
+            i = (i + 1) & (keys.length - 1);
+        }
+        keys[i] = key;
+        counts[i] = 1;
+        if (++size*2 > keys.length) {
+            resize();
+        }
+        return 0;
+    }
+
+    /**
+     * Decrements the number of VMs of an app that are assigned to a host. The host needs to have at least one VM of
+     * the app.
+     *
+     * @param host the index of the host
+     * @param app the index of the app
+     * @return the number of VMs before decrementing it
+     */
+    int decrement(int host, int app) {
+        long key = getKey(host, app);
+        int i = getSlot(key);
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY) {
+                throw new IllegalStateException("The host " + host + " does not have VMs of the app " + app);
+            }
+            i = (i + 1) & (keys.length - 1);
+        }
+        int result = counts[i]--;
+        if (counts[i] == 0) {
+            remove(i);
+        }
+        return result;
+    }
+
+    /**
+     * Removes the element of a slot. The elements that follow it are moved back, so the elements that collided with
+     * it can still be found without leaving a mark in the slot.
+     *
+     * @param slot the slot
+     */
+    private void remove(int slot) {
+        int mask = keys.length - 1;
+        int gap = slot;
+        int i = (slot + 1) & mask;
+        while (keys[i] != EMPTY) {
+            int home = getSlot(keys[i]);
+            // The element can fill the gap if its home slot is not between the gap and its current position
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                counts[gap] = counts[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        counts[gap] = 0;
+        --size;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length*2];
+        Arrays.fill(keys, EMPTY);
+        counts = new int[oldCounts.length*2];
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = getSlot(oldKeys[i]);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & (keys.length - 1);
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private long getKey(int host, int app) {
+        return (long) host*appsCount + app;
+    }
+
+    private int getSlot(long key) {
+        long hash = key*0x9E3779B97F4A7C15L; // Spreads consecutive keys over the table
+        return (int) (hash ^ (hash >>> 32)) & (keys.length - 1);
+    }
+
+}
@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package es.bsc.clopla.placement.scorecalculators;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Vm;
+import org.optaplanner.core.impl.score.director.incremental.IncrementalScoreCalculator;
+
+import static es.bsc.clopla.placement.scorecalculators.CompactClusterState.UNASSIGNED;
+
+/**
+ * This class includes the state that is shared by the incremental score calculators.
+ * Instead of recalculating the whole score each time a VM is moved, the incremental calculators keep track of
+ * the resources used in each host, the number of idle and off hosts, the overcapacity of the cluster, and the
+ * number of migrations needed from the initial state. Moving a VM only updates
+ * the values of its source and destination hosts.
+ * The resources used in each host are kept in a compact state of the working solution, where VMs and hosts are
+ * identified by their position in the lists of the working solution. When VMs or hosts are added or removed, the
+ * compact state is created again.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public abstract class IncrementalScoreCalculatorCommon implements IncrementalScoreCalculator<ClusterState> {
+
+    // The scores that are not integers are accumulated in fixed point. Otherwise, the rounding errors of
+    // adding and subtracting doubles would make the score of a state depend on the moves that led to it.
+    protected static final long FIXED_POINT_SCALE = 1000000;
+
+    protected CompactClusterState compactClusterState;
+    private ClusterState workingSolution;
+    protected int idleHosts;
+    protected int offHosts;
+    private long overCapacityScore; // fixed point
+    protected int vmMigrationsNeeded;
+
+    @Override
+    public void resetWorkingSolution(ClusterState workingSolution) {
+        this.workingSolution = workingSolution;
+        compactClusterState = new CompactClusterState(workingSolution);
+        idleHosts = 0;
+        offHosts = 0;
+        overCapacityScore = 0;
+        resetHostScores();
+        for (int host = 0; host < compactClusterState.getHostsCount(); ++host) {
+            insertHostScores(host);
+        }
+        vmMigrationsNeeded = compactClusterState.countVmMigrationsNeeded();
+    }
+
+    @Override
+    public void beforeEntityAdded(Object entity) {
+        // Do nothing
+    }
+
+    @Override
+    public void afterEntityAdded(Object entity) {
+        insert((Vm) entity);
+    }
+
+    public void beforeAllVariablesChanged(Object entity) {
+        retract((Vm) entity);
+    }
+
+    public void afterAllVariablesChanged(Object entity) {
+        insert((Vm) entity);
+    }
+
+    @Override
+    public void beforeVariableChanged(Object entity, String variableName) {
+        retract((Vm) entity);
+    }
+
+    @Override
+    public void afterVariableChanged(Object entity, String variableName) {
+        insert((Vm) entity);
+    }
+
+    @Override
+    public void beforeEntityRemoved(Object entity) {
+        retract((Vm) entity);
+    }
+
+    @Override
+    public void afterEntityRemoved(Object entity) {
+        resetIfOutdated();
+    }
+
+    /**
+     * Returns the hard score. It is calculated as in ScoreCalculatorCommon: overcapacity of the servers of the
+     * cluster.
+     *
+     * @return the hard score
+     */
+    protected int calculateHardScore() {
+        return (int) (overCapacityScore/FIXED_POINT_SCALE);
+    }
+
+    /**
+     * Updates the scores after assigning a VM to a host.
+     * Subclasses that need to keep track of more information about the VMs of each host should override this
+     * method and call it.
+     *
+     * @param vm the index of the VM
+     * @param host the index of the host. UNASSIGNED if the VM is not assigned to a host of the working solution
+     */
+    protected void insert(int vm, int host) {
+        if (host != UNASSIGNED) {
+            retractHostScores(host);
+            compactClusterState.assign(vm, host);
+            insertHostScores(host);
+        }
+        if (compactClusterState.needsMigration(vm)) {
+            ++vmMigrationsNeeded;
+        }
+    }
+
+    /**
+     * Updates the scores before unassigning a VM from its host.
+     *
+     * @param vm the index of the VM
+     */
+    protected void retract(int vm) {
+        if (compactClusterState.needsMigration(vm)) {
+            --vmMigrationsNeeded;
+        }
+        int host = compactClusterState.getHost(vm);
+        if (host != UNASSIGNED) {
+            retractHostScores(host);
+            compactClusterState.unassign(vm);
+            insertHostScores(host);
+        }
+    }
+
+    /**
+     * Resets the scores that subclasses keep for each host.
+     */
+    protected void resetHostScores() {
+        // Do nothing
+    }
+
+    /**
+     * Subtracts the contribution of a host from the scores.
+     * Subclasses that keep scores that depend on the usage of each host should override this method and call it.
+     *
+     * @param host the index of the host
+     */
+    protected void retractHostScores(int host) {
+        if (compactClusterState.getVmsCount(host) == 0) {
+            --idleHosts;
+            if (compactClusterState.wasOffInitially(host)) {
+                --offHosts;
+            }
+        }
+        overCapacityScore -= toFixedPoint(compactClusterState.getOverCapacityScore(host));
+    }
+
+    /**
+     * Adds the contribution of a host to the scores.
+     *
+     * @param host the index of the host
+     */
+    protected void insertHostScores(int host) {
+        if (compactClusterState.getVmsCount(host) == 0) {
+            ++idleHosts;
+            if (compactClusterState.wasOffInitially(host)) {
+                ++offHosts;
+            }
+        }
+        overCapacityScore += toFixedPoint(compactClusterState.getOverCapacityScore(host));
+    }
+
+    /**
+     * Converts a score to fixed point.
+     *
+     * @param score the score
+     * @return the score in fixed point
+     */
+    protected static long toFixedPoint(double score) {
+        return Math.round(score*FIXED_POINT_SCALE);
+    }
+
+    private void insert(Vm vm) {
+        if (!resetIfOutdated()) { // Otherwise, the VM is already in its host after the reset
+            int vmIndex = compactClusterState.getVmIndex(vm);
+            if (vmIndex != UNASSIGNED) {
+                insert(vmIndex, compactClusterState.getHostIndex(vm.getHost()));
+            }
+        }
+    }
+
+    private void retract(Vm vm) {
+        resetIfOutdated();
+        int vmIndex = compactClusterState.getVmIndex(vm);
+        if (vmIndex != UNASSIGNED) {
+            retract(vmIndex);
+        }
+    }
+
+    /**
+     * Resets the working solution when VMs or hosts have been added to it or removed from it since the compact state
+     * was created.
+     *
+     * @return true if the working solution was reset, false otherwise
+     */
+    private boolean resetIfOutdated() {
+        if (compactClusterState.isCreatedFrom(workingSolution)) {
+            return false;
+        }
+        resetWorkingSolution(workingSolution);
+        return true;
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package es.bsc.clopla.placement.scorecalculators;
+
+import org.optaplanner.core.api.score.buildin.bendable.BendableScore;
+
+/**
+ * This class defines the same score as ScoreCalculatorConsolidation, but calculates it incrementally.
+ * The score in this case contains 1 hard score and 4 levels of soft scores.
+ * Hard score: overcapacity of the servers of the cluster. (minimize)
+ * Soft scores: 1) Number of hosts that are off. (maximize)
+ *              2) Number of hosts that are idle. (maximize)
+ *              3) Total unused CPU %. (minimize)
+ *              4) Number of migrations needed from initial state (minimize)
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class IncrementalScoreCalculatorConsolidation extends IncrementalScoreCalculatorCommon {
+
+    private long cumulativeUnusedCpuRatio; // fixed point
+
+    @Override
+    public BendableScore calculateScore() {
+        int[] hardScores = { calculateHardScore() };
+        int[] softScores = {
+                offHosts,
+                idleHosts,
+                - (int) (cumulativeUnusedCpuRatio*100/FIXED_POINT_SCALE),
+                vmMigrationsNeeded};
+        return BendableScore.valueOf(hardScores, softScores);
+    }
+
+    @Override
+    protected void resetHostScores() {
+        cumulativeUnusedCpuRatio = 0;
+    }
+
+    @Override
+    protected void retractHostScores(int host) {
+        super.retractHostScores(host);
+        cumulativeUnusedCpuRatio -= getUnusedCpuRatio(host);
+    }
+
+    @Override
+    protected void insertHostScores(int host) {
+        super.insertHostScores(host);
+        cumulativeUnusedCpuRatio += getUnusedCpuRatio(host);
+    }
+
+    private long getUnusedCpuRatio(int host) {
+        return toFixedPoint(compactClusterState.getUnusedCpuRatio(host)); // 0 if the host is overbooked
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package es.bsc.clopla.placement.scorecalculators;
+
+import org.optaplanner.core.api.score.buildin.bendable.BendableScore;
+
+/**
+ * This class defines the same score as ScoreCalculatorDistribution, but calculates it incrementally.
+ * The std dev is obtained from the running sum and the running sum of squares of the cpus_assigned/cpus_total
+ * ratio of the hosts, so moving a VM only requires updating the ratios of two hosts.
+ * The score in this case contains 1 hard score and 3 levels of soft scores.
+ * Hard score: overcapacity of the servers of the cluster. (minimize)
+ * Soft scores: 1) Number of hosts that are not idle. (maximize)
+ *              2) std dev of the avg cpus_assigned/cpus_total in the hosts of the cluster. (minimize)
+ *              3) Number of migrations needed from initial state (minimize)
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class IncrementalScoreCalculatorDistribution extends IncrementalScoreCalculatorCommon {
+
+    private int hostsCount;
+    private long cpuRatioSum; // fixed point
+    private long cpuRatioSquaresSum; // fixed point
+
+    @Override
+    public BendableScore calculateScore() {
+        int[] hardScores = { calculateHardScore() };
+        int[] softScores = {
+                hostsCount - idleHosts,
+                - (int) Math.round(calculateStdDevCpuPercUsedPerHost()),
+                vmMigrationsNeeded};
+        return BendableScore.valueOf(hardScores, softScores);
+    }
+
+    @Override
+    protected void resetHostScores() {
+        hostsCount = 0;
+        cpuRatioSum = 0;
+        cpuRatioSquaresSum = 0;
+    }
+
+    @Override
+    protected void retractHostScores(int host) {
+        super.retractHostScores(host);
+        double cpuRatio = compactClusterState.getCpuRatio(host);
+        cpuRatioSum -= toFixedPoint(cpuRatio);
+        cpuRatioSquaresSum -= toFixedPoint(cpuRatio*cpuRatio);
+        --hostsCount;
+    }
+
+    @Override
+    protected void insertHostScores(int host) {
+        super.insertHostScores(host);
+        double cpuRatio = compactClusterState.getCpuRatio(host);
+        cpuRatioSum += toFixedPoint(cpuRatio);
+        cpuRatioSquaresSum += toFixedPoint(cpuRatio*cpuRatio);
+        ++hostsCount;
+    }
+
+    /**
+     * Calculates the std dev of the cpu % assigned per host as sqrt(E[x^2] - E[x]^2).
+     *
+     * @return the std dev
+     */
+    private double calculateStdDevCpuPercUsedPerHost() {
+        double avg = (double) cpuRatioSum/FIXED_POINT_SCALE/hostsCount;
+        double avgOfSquares = (double) cpuRatioSquaresSum/FIXED_POINT_SCALE/hostsCount;
+        double variance = avgOfSquares - avg*avg;
+        return variance > 0 ? Math.sqrt(variance) : 0; // Rounding can make the variance slightly negative
+    }
+
+}
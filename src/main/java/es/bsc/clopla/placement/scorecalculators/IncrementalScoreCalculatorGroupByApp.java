@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package es.bsc.clopla.placement.scorecalculators;
+
+import es.bsc.clopla.domain.ClusterState;
+import org.optaplanner.core.api.score.buildin.bendable.BendableScore;
+
+import static es.bsc.clopla.placement.scorecalculators.CompactClusterState.UNASSIGNED;
+
+/**
+ * This class defines the same score as ScoreCalculatorGroupByApp, but calculates it incrementally.
+ * For each host, it keeps the number of VMs of each application. When a host has n VMs of an application,
+ * those VMs contribute n*(n-1) to the second soft score, so adding or removing a VM changes the score by 2*n.
+ * The score in this case contains 1 hard score and 3 levels of soft scores.
+ * Hard score: overcapacity of the servers of the cluster. (minimize)
+ * Soft scores: 1) number of hosts that are off. (maximize)
+ *              2) for each VM, sums the number of VMs that are deployed in the same host
+ *                 and that belong to the same application. (maximize)
+ *              3) Number of migrations needed from initial state (minimize)
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class IncrementalScoreCalculatorGroupByApp extends IncrementalScoreCalculatorCommon {
+
+    private HostAppVmCounts vmsOfEachAppInHosts;
+    private int sameAppVmPairs;
+
+    @Override
+    public void resetWorkingSolution(ClusterState workingSolution) {
+        super.resetWorkingSolution(workingSolution);
+        vmsOfEachAppInHosts = new HostAppVmCounts(compactClusterState.getAppsCount());
+        sameAppVmPairs = 0;
+        for (int vm = 0; vm < workingSolution.getVms().size(); ++vm) {
+            addToApp(vm, compactClusterState.getHost(vm));
+        }
+    }
+
+    @Override
+    public BendableScore calculateScore() {
+        int[] hardScores = { calculateHardScore() };
+        int[] softScores = {
+                offHosts,
+                sameAppVmPairs,
+                vmMigrationsNeeded};
+        return BendableScore.valueOf(hardScores, softScores);
+    }
+
+    @Override
+    protected void insert(int vm, int host) {
+        super.insert(vm, host);
+        addToApp(vm, host);
+    }
+
+    @Override
+    protected void retract(int vm) {
+        int host = compactClusterState.getHost(vm);
+        super.retract(vm);
+        int app = compactClusterState.getApp(vm);
+        if (host != UNASSIGNED && app != UNASSIGNED) {
+            int n = vmsOfEachAppInHosts.decrement(host, app);
+            sameAppVmPairs -= 2*(n - 1); // n*(n - 1) - (n - 1)*(n - 2)
+        }
+    }
+
+    private void addToApp(int vm, int host) {
+        int app = compactClusterState.getApp(vm);
+        if (host != UNASSIGNED && app != UNASSIGNED) {
+            int n = vmsOfEachAppInHosts.increment(host, app);
+            sameAppVmPairs += 2*n; // (n + 1)*n - n*(n - 1)
+        }
+    }
+
+}
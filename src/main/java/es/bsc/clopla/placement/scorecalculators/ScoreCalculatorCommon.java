@@ -29,22 +29,10 @@ import es.bsc.clopla.domain.Host;
  */
 public abstract class ScoreCalculatorCommon {
 
-    public final static int PENALTY_FOR_MOVING_FIXED_VMS = 10000;
-
     public static double getClusterOverCapacityScore(ClusterState clusterState) {
         double result = 0;
         for (Host host: clusterState.getHosts()) {
-            result += host.getOverCapacityScore(clusterState.getVms());
-        }
-        return result;
-    }
-    
-    public static double getClusterPenaltyScoreForFixedVms(ClusterState clusterState) {
-        double result = 0;
-        for (Host host: clusterState.getHosts()) {
-            if (host.missingFixedVMs(clusterState.getVms())) {
-                result -= PENALTY_FOR_MOVING_FIXED_VMS;
-            }
+            result += host.getOverCapacityScore(clusterState.getHostUsage(host));
         }
         return result;
     }
@@ -20,15 +20,13 @@
 package es.bsc.clopla.placement.scorecalculators;
 
 import es.bsc.clopla.domain.ClusterState;
-import es.bsc.clopla.placement.config.VmPlacementConfig;
 import org.optaplanner.core.api.score.buildin.bendable.BendableScore;
 import org.optaplanner.core.impl.score.director.simple.SimpleScoreCalculator;
 
 /**
  * This class defines the score used in the distribution policy.
  * The score in this case contains 1 hard score and 3 levels of soft scores.
- * Hard score: overcapacity of the servers of the cluster 
- *             plus number of fixed VMs that were moved. (minimize)
+ * Hard score: overcapacity of the servers of the cluster. (minimize)
  * Soft scores: 1) Number of hosts that are not idle. (maximize)
  *              2) std dev of the avg cpus_assigned/cpus_total in the hosts of the cluster. (minimize)
  *              3) Number of migrations needed from initial state (minimize)
@@ -37,19 +35,21 @@ import org.optaplanner.core.impl.score.director.simple.SimpleScoreCalculator;
  */
 public class ScoreCalculatorDistribution implements SimpleScoreCalculator<ClusterState> {
 
+    private CompactClusterState compactClusterState; // Reused by the next calls, see CompactClusterState.refresh
+
     @Override
     public BendableScore calculateScore(ClusterState solution) {
-        int[] hardScores = { calculateHardScore(solution) };
+        compactClusterState = CompactClusterState.refresh(compactClusterState, solution);
+        int[] hardScores = { calculateHardScore(compactClusterState) };
         int[] softScores = {
-                solution.countNonIdleHosts(),
-                - (int) Math.round(solution.calculateStdDevCpuPercUsedPerHost()), 
-                VmPlacementConfig.initialClusterState.get().countVmMigrationsNeeded(solution)};
+                compactClusterState.getHostsCount() - compactClusterState.countIdleHosts(),
+                - (int) Math.round(compactClusterState.calculateStdDevCpuPercUsedPerHost()),
+                compactClusterState.countVmMigrationsNeeded()};
         return BendableScore.valueOf(hardScores, softScores);
     }
 
-    private int calculateHardScore(ClusterState solution) {
-        return (int) (ScoreCalculatorCommon.getClusterOverCapacityScore(solution)
-                + ScoreCalculatorCommon.getClusterPenaltyScoreForFixedVms(solution));
+    private int calculateHardScore(CompactClusterState solution) {
+        return (int) solution.getOverCapacityScore();
     }
 
 }
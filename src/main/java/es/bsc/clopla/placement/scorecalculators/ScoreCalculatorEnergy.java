@@ -21,40 +21,62 @@ package es.bsc.clopla.placement.scorecalculators;
 
 import es.bsc.clopla.domain.ClusterState;
 import es.bsc.clopla.domain.Host;
-import es.bsc.clopla.placement.config.VmPlacementConfig;
+import es.bsc.clopla.modellers.EnergyModeller;
 import org.optaplanner.core.api.score.buildin.hardmediumsoft.HardMediumSoftScore;
 import org.optaplanner.core.impl.score.director.simple.SimpleScoreCalculator;
 
+import java.util.List;
+
 /**
  * This class defines the score used in the energy-aware policy.
  * The score in this case contains a hard, a medium, and a soft score.
- * Hard score: overcapacity of the servers of the cluster
- *             plus number of fixed VMs that were moved. (minimize)
+ * Hard score: overcapacity of the servers of the cluster. (minimize)
  * Medium score: power consumption of the cluster. (minimize)
  * Soft score: number of migrations needed from initial state (minimize) 
+ * The power consumption of each host is kept between calculations, and the energy modeller is only queried for the
+ * hosts whose VMs have changed since the previous calculation.
  *
  * @author David Ortiz (david.ortiz@bsc.es)
  */
 public class ScoreCalculatorEnergy implements SimpleScoreCalculator<ClusterState> {
 
+    private CompactClusterState compactClusterState; // Reused by the next calls, see CompactClusterState.refresh
+    private CompactClusterState powerConsumptionsState; // The compact state that powerConsumptions belongs to
+    private EnergyModeller powerConsumptionsModeller; // The modeller that calculated powerConsumptions
+    private double[] powerConsumptions; // Last power consumption of each host
+
     @Override
     public HardMediumSoftScore calculateScore(ClusterState solution) {
+        compactClusterState = CompactClusterState.refresh(compactClusterState, solution);
         return HardMediumSoftScore.valueOf(
-                calculateHardScore(solution),
+                calculateHardScore(compactClusterState),
                 calculateMediumScore(solution),
-                VmPlacementConfig.initialClusterState.get().countVmMigrationsNeeded(solution));
+                compactClusterState.countVmMigrationsNeeded());
     }
 
-    private int calculateHardScore(ClusterState solution) {
-        return (int) (ScoreCalculatorCommon.getClusterOverCapacityScore(solution)
-                + ScoreCalculatorCommon.getClusterPenaltyScoreForFixedVms(solution));
+    private int calculateHardScore(CompactClusterState solution) {
+        return (int) solution.getOverCapacityScore();
     }
 
     private int calculateMediumScore(ClusterState solution) {
+        EnergyModeller energyModeller = solution.getPlacementContext().getEnergyModeller();
+        List<Host> hosts = solution.getHosts();
+        boolean allHostsChanged = powerConsumptionsState != compactClusterState
+                || powerConsumptionsModeller != energyModeller;
+        if (allHostsChanged) {
+            powerConsumptions = new double[hosts.size()];
+            powerConsumptionsState = compactClusterState;
+            powerConsumptionsModeller = energyModeller;
+        }
         double result = 0;
-        for (Host host: solution.getHosts()) {
-            result -= VmPlacementConfig.energyModeller.get().getPowerConsumption(host, solution.getVmsDeployedInHost(host));
+        for (int i = 0; i < hosts.size(); ++i) {
+            if (allHostsChanged || compactClusterState.hostChanged(i)) {
+                powerConsumptions[i] = energyModeller.getPowerConsumption(
+                        hosts.get(i), compactClusterState.getVmsOfHost(i));
+            }
+            result -= powerConsumptions[i];
         }
+        compactClusterState.clearChangedHosts();
         return (int) result;
     }
 
@@ -20,18 +20,13 @@
 package es.bsc.clopla.placement.scorecalculators;
 
 import es.bsc.clopla.domain.ClusterState;
-import es.bsc.clopla.domain.Host;
-import es.bsc.clopla.placement.config.VmPlacementConfig;
 import org.optaplanner.core.api.score.buildin.bendable.BendableScore;
 import org.optaplanner.core.impl.score.director.simple.SimpleScoreCalculator;
 
-import java.util.List;
-
 /**
  * This class defines the score used in the 'group by app' policy.
  * The score in this case contains 1 hard score and 3 levels of soft scores.
- * Hard score: overcapacity of the servers of the cluster
- *             plus number of fixed VMs that were moved. (minimize)
+ * Hard score: overcapacity of the servers of the cluster. (minimize)
  * Soft scores: 1) number of hosts that are off. (maximize)
  *              2) for each VM, sums the number of VMs that are deployed in the same host
  *                 and that belong to the same application. (maximize)
@@ -41,36 +36,21 @@ import java.util.List;
  */
 public class ScoreCalculatorGroupByApp implements SimpleScoreCalculator<ClusterState> {
 
+    private CompactClusterState compactClusterState; // Reused by the next calls, see CompactClusterState.refresh
+
     @Override
     public BendableScore calculateScore(ClusterState solution) {
-        int[] hardScores = { calculateHardScore(solution) };
+        compactClusterState = CompactClusterState.refresh(compactClusterState, solution);
+        int[] hardScores = { calculateHardScore(compactClusterState) };
         int[] softScores = {
-                solution.countOffHosts(),
-                calculateSoftScore2(solution),
-                VmPlacementConfig.initialClusterState.get().countVmMigrationsNeeded(solution)};
+                compactClusterState.countOffHosts(),
+                compactClusterState.countSameAppVmPairs(),
+                compactClusterState.countVmMigrationsNeeded()};
         return BendableScore.valueOf(hardScores, softScores);
     }
     
-    private int calculateHardScore(ClusterState solution) {
-        return (int) (ScoreCalculatorCommon.getClusterOverCapacityScore(solution)
-                + ScoreCalculatorCommon.getClusterPenaltyScoreForFixedVms(solution));
-    }
-
-    private int calculateSoftScore2(ClusterState solution) {
-        int result = 0;
-        for (Host host: solution.getHosts()) {
-            double hostScore = 0;
-            List<String> idsOfVmsOfHost = solution.getIdsOfAppsDeployedInHost(host);
-            for (int i = 0; i < idsOfVmsOfHost.size(); ++i) {
-                for (int j = 0; j < idsOfVmsOfHost.size(); ++j) {
-                    if (idsOfVmsOfHost.get(i).equals(idsOfVmsOfHost.get(j)) && i != j) {
-                        ++hostScore;
-                    }
-                }
-            }
-            result += hostScore;
-        }
-        return result;
+    private int calculateHardScore(CompactClusterState solution) {
+        return (int) solution.getOverCapacityScore();
     }
 
 }
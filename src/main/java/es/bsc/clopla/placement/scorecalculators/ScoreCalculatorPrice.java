@@ -21,39 +21,59 @@ package es.bsc.clopla.placement.scorecalculators;
 
 import es.bsc.clopla.domain.ClusterState;
 import es.bsc.clopla.domain.Host;
-import es.bsc.clopla.placement.config.VmPlacementConfig;
+import es.bsc.clopla.modellers.BulkPriceModeller;
+import es.bsc.clopla.modellers.PriceModeller;
 import org.optaplanner.core.api.score.buildin.hardmediumsoft.HardMediumSoftScore;
 import org.optaplanner.core.impl.score.director.simple.SimpleScoreCalculator;
 
+import java.util.List;
+
 /**
  * This class defines the score used in the price policy.
  * The score in this case contains a hard, a medium, and a soft score.
- * Hard score: overcapacity of the servers of the cluster
- *             plus number of fixed VMs that were moved. (minimize)
+ * Hard score: overcapacity of the servers of the cluster. (minimize)
  * Medium score: price of running the VMs in the hosts indicated. (minimize)
  * Soft score: number of migrations needed from initial state (minimize) 
+ * If the Price Modeller implements BulkPriceModeller, the price of all the hosts is calculated with a single call.
  *
  * @author David Ortiz (david.ortiz@bsc.es)
  */
 public class ScoreCalculatorPrice implements SimpleScoreCalculator<ClusterState> {
 
+    private CompactClusterState compactClusterState; // Reused by the next calls, see CompactClusterState.refresh
+
     @Override
     public HardMediumSoftScore calculateScore(ClusterState solution) {
+        compactClusterState = CompactClusterState.refresh(compactClusterState, solution);
         return HardMediumSoftScore.valueOf(
-                calculateHardScore(solution),
+                calculateHardScore(compactClusterState),
                 calculateSoftScore(solution),
-                VmPlacementConfig.initialClusterState.get().countVmMigrationsNeeded(solution));
+                compactClusterState.countVmMigrationsNeeded());
     }
 
-    private int calculateHardScore(ClusterState solution) {
-        return (int) (ScoreCalculatorCommon.getClusterOverCapacityScore(solution)
-                + ScoreCalculatorCommon.getClusterPenaltyScoreForFixedVms(solution));
+    private int calculateHardScore(CompactClusterState solution) {
+        return (int) solution.getOverCapacityScore();
     }
 
     private int calculateSoftScore(ClusterState solution) {
+        PriceModeller priceModeller = solution.getPlacementContext().getPriceModeller();
+        if (priceModeller instanceof BulkPriceModeller) {
+            return calculateSoftScoreInBulk(solution.getHosts(), (BulkPriceModeller) priceModeller);
+        }
+        List<Host> hosts = solution.getHosts();
+        double result = 0;
+        for (int i = 0; i < hosts.size(); ++i) {
+            result -= priceModeller.getCost(hosts.get(i), compactClusterState.getVmsOfHost(i));
+        }
+        return (int) result;
+    }
+
+    private int calculateSoftScoreInBulk(List<Host> hosts, BulkPriceModeller priceModeller) {
+        // The compact state is up to date, so the resources used in each host do not need to be recalculated
         double result = 0;
-        for (Host host: solution.getHosts()) {
-            result -= VmPlacementConfig.priceModeller.get().getCost(host, solution.getVmsDeployedInHost(host));
+        for (double cost: priceModeller.getCosts(hosts, compactClusterState.getNcpusUsed(),
+                compactClusterState.getRamMbUsed(), compactClusterState.getDiskGbUsed())) {
+            result -= cost;
         }
         return (int) result;
     }
@@ -20,7 +20,6 @@
 package es.bsc.clopla.placement.scorecalculators;
 
 import es.bsc.clopla.domain.ClusterState;
-import es.bsc.clopla.placement.config.VmPlacementConfig;
 import org.optaplanner.core.api.score.buildin.bendable.BendableScore;
 import org.optaplanner.core.impl.score.director.simple.SimpleScoreCalculator;
 
@@ -29,8 +28,7 @@ import java.util.Random;
 /**
  * This class defines the score used in the random policy.
  * The score in this case contains 1 hard score and 3 levels of soft scores.
- * Hard score: overcapacity of the servers of the cluster
- *             plus number of fixed VMs that were moved. (minimize)
+ * Hard score: overcapacity of the servers of the cluster. (minimize)
  * Soft scores: 1) Number of hosts that are off. (maximize)
  *              2) random value. (maximize)
  *              3) Number of migrations needed from initial state (minimize)
@@ -41,20 +39,21 @@ public class ScoreCalculatorRandom implements SimpleScoreCalculator<ClusterState
 
     private final Random rand = new Random();
     private final static int POSSIBLE_SCORES = 1000000; // Range of values for the random scores
+    private CompactClusterState compactClusterState; // Reused by the next calls, see CompactClusterState.refresh
 
     @Override
     public BendableScore calculateScore(ClusterState solution) {
-        int[] hardScores = { calculateHardScore(solution) };
+        compactClusterState = CompactClusterState.refresh(compactClusterState, solution);
+        int[] hardScores = { calculateHardScore(compactClusterState) };
         int[] softScores = {
-                solution.countOffHosts(),
+                compactClusterState.countOffHosts(),
                 rand.nextInt(POSSIBLE_SCORES),
-                VmPlacementConfig.initialClusterState.get().countVmMigrationsNeeded(solution)};
+                compactClusterState.countVmMigrationsNeeded()};
         return BendableScore.valueOf(hardScores, softScores);
     }
 
-    private int calculateHardScore(ClusterState solution) {
-        return (int) (ScoreCalculatorCommon.getClusterOverCapacityScore(solution)
-                + ScoreCalculatorCommon.getClusterPenaltyScoreForFixedVms(solution));
+    private int calculateHardScore(CompactClusterState solution) {
+        return (int) solution.getOverCapacityScore();
     }
 
 }
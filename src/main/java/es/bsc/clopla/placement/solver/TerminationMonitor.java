@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.solver;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Vm;
+import es.bsc.clopla.placement.config.Termination;
+import org.optaplanner.core.api.score.Score;
+import org.optaplanner.core.api.score.buildin.bendable.BendableScore;
+import org.optaplanner.core.api.score.buildin.hardmediumsoft.HardMediumSoftScore;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.impl.event.BestSolutionChangedEvent;
+import org.optaplanner.core.impl.event.SolverEventListener;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class applies the parts of a Termination that OptaPlanner cannot apply by itself: the unimproved time limit
+ * and the target. It listens to the best solutions found by a solver, and asks the solver to stop when the target
+ * is reached, or when the solver does not find a better solution within the unimproved time limit.
+ * The unimproved time starts counting from the first solution found, and it stops counting when the solver stops.
+ * Monitors are attached to solvers with monitor(), and the solvers need to be run with VmPlacementSolver.solve(),
+ * so that the timeout is cancelled when they stop. Otherwise, the timeout of a run could stop the next run of the
+ * same solver, as in a VmPlacementSession.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+class TerminationMonitor implements SolverEventListener {
+
+    // Shared by all the monitors. Its only thread is a daemon, so it does not prevent the JVM from exiting.
+    private static final ScheduledThreadPoolExecutor scheduler = createScheduler();
+
+    // The monitors of the solvers. The keys are weak, so the solvers can be garbage collected when they are no
+    // longer used.
+    private static final Map<Solver, TerminationMonitor> monitors =
+            Collections.synchronizedMap(new WeakHashMap<Solver, TerminationMonitor>());
+
+    // Weak so that the map of monitors does not keep the solver alive
+    private final WeakReference<Solver> solver;
+    private final Termination termination;
+    private ScheduledFuture<?> unimprovedTimeout = null; // Access synchronized on this
+
+    private TerminationMonitor(Solver solver, Termination termination) {
+        this.solver = new WeakReference<>(solver);
+        this.termination = termination;
+    }
+
+    /**
+     * Attaches a monitor to a solver to apply a termination.
+     *
+     * @param solver the solver
+     * @param termination the termination
+     * @return the monitor
+     */
+    static TerminationMonitor monitor(Solver solver, Termination termination) {
+        TerminationMonitor result = new TerminationMonitor(solver, termination);
+        solver.addEventListener(result);
+        monitors.put(solver, result);
+        return result;
+    }
+
+    /**
+     * Notifies the monitor of a solver, if it has one, that the solver has stopped solving.
+     *
+     * @param solver the solver
+     */
+    static void solvingEnded(Solver solver) {
+        TerminationMonitor monitor = monitors.get(solver);
+        if (monitor != null) {
+            monitor.cancelUnimprovedTimeout();
+        }
+    }
+
+    @Override
+    public void bestSolutionChanged(BestSolutionChangedEvent event) {
+        ClusterState bestSolution = (ClusterState) event.getNewBestSolution();
+        if (termination.hasTarget() && isTargetReached(bestSolution, termination)) {
+            terminateSolver();
+        }
+        else if (termination.getUnimprovedTimeLimitMillis() != null) {
+            restartUnimprovedTimeout();
+        }
+    }
+
+    /**
+     * Checks whether a solution meets the target of a termination. A solution only meets the target when all its
+     * VMs have been assigned to a host.
+     * Nothing is recalculated: the feasibility and the migrations are read from the score of the solution, which
+     * the score calculators compute for every best solution. The migrations are the last soft level of the score.
+     *
+     * @param solution the solution
+     * @param termination the termination
+     * @return true if the solution meets the target, false otherwise
+     */
+    static boolean isTargetReached(ClusterState solution, Termination termination) {
+        Score score = solution.getScore();
+        if (score == null) {
+            return false;
+        }
+        for (Vm vm: solution.getVms()) {
+            if (vm.getHost() == null) {
+                return false;
+            }
+        }
+        if (termination.isFeasibleTarget() && !isFeasible(score)) {
+            return false;
+        }
+        return termination.getMaxMigrationsTarget() == null
+                || getVmMigrationsNeeded(score) <= termination.getMaxMigrationsTarget();
+    }
+
+    private static boolean isFeasible(Score score) {
+        if (score instanceof HardMediumSoftScore) {
+            return ((HardMediumSoftScore) score).getHardScore() >= 0;
+        }
+        BendableScore bendableScore = getBendableScore(score);
+        for (int i = 0; i < bendableScore.getHardLevelCount(); ++i) {
+            if (bendableScore.getHardScore(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int getVmMigrationsNeeded(Score score) {
+        if (score instanceof HardMediumSoftScore) {
+            return ((HardMediumSoftScore) score).getSoftScore();
+        }
+        BendableScore bendableScore = getBendableScore(score);
+        return bendableScore.getSoftScore(bendableScore.getSoftLevelCount() - 1);
+    }
+
+    private static BendableScore getBendableScore(Score score) {
+        if (!(score instanceof BendableScore)) {
+            throw new IllegalArgumentException("Unexpected type of score: " + score.getClass().getName());
+        }
+        return (BendableScore) score;
+    }
+
+    synchronized void restartUnimprovedTimeout() {
+        cancelUnimprovedTimeout();
+        unimprovedTimeout = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                terminateSolver();
+            }
+        }, termination.getUnimprovedTimeLimitMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void cancelUnimprovedTimeout() {
+        if (unimprovedTimeout != null) {
+            unimprovedTimeout.cancel(false);
+            unimprovedTimeout = null;
+        }
+    }
+
+    private void terminateSolver() {
+        Solver monitoredSolver = solver.get();
+        if (monitoredSolver != null) {
+            monitoredSolver.terminateEarly();
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createScheduler() {
+        ScheduledThreadPoolExecutor result = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "clopla-termination-monitor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        result.setRemoveOnCancelPolicy(true); // Timeouts are restarted often
+        return result;
+    }
+
+}
@@ -19,6 +19,7 @@
 
 package es.bsc.clopla.placement.solver;
 
+import es.bsc.clopla.placement.config.Termination;
 import es.bsc.clopla.placement.config.VmPlacementConfig;
 import org.optaplanner.core.api.solver.Solver;
 
@@ -29,10 +30,10 @@ import org.optaplanner.core.api.solver.Solver;
  */
 public class VmPlacementSolver {
     
-    private final VmPlacementSolverFactory vmPlacementSolverFactory;
+    private final VmPlacementConfig vmPlacementConfig;
 
     public VmPlacementSolver(VmPlacementConfig vmPlacementConfig) {
-        this.vmPlacementSolverFactory = new VmPlacementSolverFactory(vmPlacementConfig);
+        this.vmPlacementConfig = vmPlacementConfig;
     }
 
     /**
@@ -41,7 +42,38 @@ public class VmPlacementSolver {
      * @return the solver
      */
     public Solver buildSolver() {
-        return vmPlacementSolverFactory.getSolverFactory().buildSolver();
+        return buildSolver(true);
+    }
+
+    /**
+     * Returns a solver built from the configuration options specified in vmPlacementConfig.
+     *
+     * @param constructionHeuristicEnabled false to build the solver without the construction heuristic phase
+     * @return the solver
+     */
+    public Solver buildSolver(boolean constructionHeuristicEnabled) {
+        Solver result = new VmPlacementSolverFactory(vmPlacementConfig, constructionHeuristicEnabled)
+                .getSolverFactory().buildSolver();
+        Termination termination = vmPlacementConfig.getTermination();
+        if (termination != null && termination.needsMonitoring()) {
+            TerminationMonitor.monitor(result, termination);
+        }
+        return result;
+    }
+
+    /**
+     * Solves the planning problem of a solver built by this class. The solvers built by this class need to be run
+     * with this function instead of Solver.solve(), so that the timers used to apply their termination are cancelled
+     * when they stop.
+     *
+     * @param solver the solver
+     */
+    public static void solve(Solver solver) {
+        try {
+            solver.solve();
+        } finally {
+            TerminationMonitor.solvingEnded(solver);
+        }
     }
 
 }
@@ -20,28 +20,62 @@
 package es.bsc.clopla.placement.solver;
 
 import com.google.common.collect.ImmutableMap;
+import es.bsc.clopla.domain.ClusterState;
 import es.bsc.clopla.domain.ConstructionHeuristic;
+import es.bsc.clopla.domain.Vm;
+import es.bsc.clopla.domain.filters.CapacityChangeMoveFilter;
+import es.bsc.clopla.domain.filters.CapacityPillarSwapMoveFilter;
+import es.bsc.clopla.domain.filters.CapacitySwapMoveFilter;
 import es.bsc.clopla.placement.config.Policy;
+import es.bsc.clopla.placement.config.Termination;
 import es.bsc.clopla.placement.config.VmPlacementConfig;
+import es.bsc.clopla.placement.config.localsearch.LocalSearch;
+import es.bsc.clopla.placement.config.localsearch.MoveType;
+import es.bsc.clopla.placement.moves.AppChangeMoveListFactory;
 import es.bsc.clopla.placement.scorecalculators.*;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.optaplanner.core.api.solver.Solver;
 import org.optaplanner.core.api.solver.SolverFactory;
 import org.optaplanner.core.config.constructionheuristic.ConstructionHeuristicSolverPhaseConfig;
+import org.optaplanner.core.config.heuristic.selector.move.MoveSelectorConfig;
+import org.optaplanner.core.config.heuristic.selector.move.composite.UnionMoveSelectorConfig;
+import org.optaplanner.core.config.heuristic.selector.move.factory.MoveListFactoryConfig;
+import org.optaplanner.core.config.heuristic.selector.move.generic.ChangeMoveSelectorConfig;
+import org.optaplanner.core.config.heuristic.selector.move.generic.PillarSwapMoveSelectorConfig;
+import org.optaplanner.core.config.heuristic.selector.move.generic.SwapMoveSelectorConfig;
 import org.optaplanner.core.config.localsearch.LocalSearchSolverPhaseConfig;
+import org.optaplanner.core.config.phase.SolverPhaseConfig;
+import org.optaplanner.core.config.score.definition.ScoreDefinitionType;
+import org.optaplanner.core.config.score.director.ScoreDirectorFactoryConfig;
 import org.optaplanner.core.config.solver.SolverConfig;
-import org.optaplanner.core.config.solver.XmlSolverFactory;
+import org.optaplanner.core.config.termination.TerminationConfig;
+import org.optaplanner.core.impl.heuristic.selector.common.decorator.SelectionFilter;
+import org.optaplanner.core.impl.score.director.incremental.IncrementalScoreCalculator;
 import org.optaplanner.core.impl.score.director.simple.SimpleScoreCalculator;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * This class creates an instance of an OptaPlanner SolverFactory from an instance of VmPlacementConfig.
+ * The SolverConfig is built in code instead of being read from an XML file, so the first placement does not need
+ * to load XStream and configure it by reflection. Even so, building a SolverConfig takes time compared to solving
+ * small problems. Because of that, the factories are cached and shared by all the configurations that have the same
+ * policy, termination, construction heuristic, local search algorithm, types of moves, type of score calculation,
+ * and random seed.
+ * The factories returned are shared, so their SolverConfig should not be modified.
  *
  * @author David Ortiz (david.ortiz@bsc.es)
  */
 public class VmPlacementSolverFactory {
 
-    private static final String BASE_SOLVER_XML_PATH = "/vmplacementSolverConfig.xml";
-
     private static final Map<Policy, Class<? extends SimpleScoreCalculator>> policyScoreCalculatorImplementations =
             ImmutableMap.<Policy, Class<? extends SimpleScoreCalculator>>builder()
                     .put(Policy.CONSOLIDATION, ScoreCalculatorConsolidation.class)
@@ -50,6 +84,15 @@ public class VmPlacementSolverFactory {
                     .put(Policy.ENERGY, ScoreCalculatorEnergy.class)
                     .put(Policy.GROUP_BY_APP, ScoreCalculatorGroupByApp.class)
                     .put(Policy.RANDOM, ScoreCalculatorRandom.class).build();
+
+    // Policies that can be calculated incrementally. The rest use the simple score calculator even when the
+    // incremental score calculation is requested.
+    private static final Map<Policy, Class<? extends IncrementalScoreCalculator>>
+            policyIncrementalScoreCalculatorImplementations =
+            ImmutableMap.<Policy, Class<? extends IncrementalScoreCalculator>>builder()
+                    .put(Policy.CONSOLIDATION, IncrementalScoreCalculatorConsolidation.class)
+                    .put(Policy.DISTRIBUTION, IncrementalScoreCalculatorDistribution.class)
+                    .put(Policy.GROUP_BY_APP, IncrementalScoreCalculatorGroupByApp.class).build();
     
     private static final Map<ConstructionHeuristic, ConstructionHeuristicSolverPhaseConfig.ConstructionHeuristicType>
             optaPlannerConstructionHeuristics =
@@ -65,82 +108,286 @@ public class VmPlacementSolverFactory {
                             ConstructionHeuristicSolverPhaseConfig.ConstructionHeuristicType.BEST_FIT_DECREASING)
                     .build();
     
+    private static final Map<Termination.CompositionStyle, TerminationConfig.TerminationCompositionStyle>
+            optaPlannerCompositionStyles =
+            ImmutableMap.<Termination.CompositionStyle, TerminationConfig.TerminationCompositionStyle>builder()
+                    .put(Termination.CompositionStyle.OR, TerminationConfig.TerminationCompositionStyle.OR)
+                    .put(Termination.CompositionStyle.AND, TerminationConfig.TerminationCompositionStyle.AND)
+                    .build();
+
+    // The moves that OptaPlanner uses by default. They are configured explicitly to filter them by capacity.
+    private static final Set<MoveType> defaultMoveTypes =
+            Collections.unmodifiableSet(EnumSet.of(MoveType.CHANGE, MoveType.SWAP));
+
+    private static final int MAX_CACHED_SOLVER_FACTORIES = 100;
+
+    // Least recently used factories are evicted when the cache is full. Access to the cache is synchronized on it.
+    private static final Map<SolverFactoryKey, SolverFactory> cachedSolverFactories =
+            new LinkedHashMap<SolverFactoryKey, SolverFactory>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<SolverFactoryKey, SolverFactory> eldest) {
+                    return size() > MAX_CACHED_SOLVER_FACTORIES;
+                }
+            };
+
     private final VmPlacementConfig vmPlacementConfig;
+    private final ConstructionHeuristic constructionHeuristic; // null if the construction heuristic is skipped
 
     public VmPlacementSolverFactory(VmPlacementConfig vmPlacementConfig) {
+        this(vmPlacementConfig, true);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param vmPlacementConfig the configuration for the VM placement problem
+     * @param constructionHeuristicEnabled false to skip the construction heuristic of the configuration. This is
+     *                                     useful when all the VMs of the problem are already assigned to a host
+     */
+    public VmPlacementSolverFactory(VmPlacementConfig vmPlacementConfig, boolean constructionHeuristicEnabled) {
         this.vmPlacementConfig = vmPlacementConfig;
+        this.constructionHeuristic = constructionHeuristicEnabled ? vmPlacementConfig.getConstructionHeuristic() : null;
     }
 
+    /**
+     * Returns a SolverFactory configured according to the placement configuration. If a factory for an
+     * equivalent configuration was already built, that factory is returned instead of building a new one.
+     *
+     * @return the solver factory
+     */
     public SolverFactory getSolverFactory() {
-        // The solver is built from an XML that contains a basic configuration.
-        // This should be a bit simpler than building the solver from scratch.
-        SolverFactory solverFactory = new XmlSolverFactory(BASE_SOLVER_XML_PATH);
-        configureSolver(solverFactory.getSolverConfig(), vmPlacementConfig);
-        return solverFactory;
+        checkModellers(vmPlacementConfig);
+        SolverFactoryKey key = new SolverFactoryKey(vmPlacementConfig, constructionHeuristic);
+        synchronized (cachedSolverFactories) {
+            SolverFactory result = cachedSolverFactories.get(key);
+            if (result == null) {
+                result = buildSolverFactory();
+                cachedSolverFactories.put(key, result);
+            }
+            return result;
+        }
+    }
+
+    private SolverFactory buildSolverFactory() {
+        final SolverConfig solverConfig = buildSolverConfig(vmPlacementConfig);
+        return new SolverFactory() {
+            @Override
+            public SolverConfig getSolverConfig() {
+                return solverConfig;
+            }
+
+            @Override
+            public Solver buildSolver() {
+                return solverConfig.buildSolver();
+            }
+        };
     }
 
     /**
-     * Modifies the given SolverConfig according to the given placement configuration.
-     * This function sets the policy, the timeout, the construction heuristic, and the local search
-     * algorithm for the given SolverConfig.
+     * Builds a SolverConfig according to the given placement configuration.
+     * This function sets the solution and entity classes, the policy, the timeout, the construction heuristic,
+     * and the local search algorithm of the SolverConfig.
      *
-     * @param solverConfig the instance of SolverConfig
      * @param vmPlacementConfig the configuration for the VM placement problem
+     * @return the instance of SolverConfig
      */
-    private void configureSolver(SolverConfig solverConfig, VmPlacementConfig vmPlacementConfig) {
+    private SolverConfig buildSolverConfig(VmPlacementConfig vmPlacementConfig) {
+        SolverConfig solverConfig = new SolverConfig();
+        configureDomain(solverConfig);
+        solverConfig.setRandomSeed(vmPlacementConfig.getRandomSeed());
         configurePolicy(solverConfig, vmPlacementConfig);
         configureTimeout(solverConfig, vmPlacementConfig);
-        configureConstructionHeuristic(solverConfig, vmPlacementConfig);
+        configureConstructionHeuristic(solverConfig);
         configureLocalSearch(solverConfig, vmPlacementConfig);
+        return solverConfig;
     }
 
-    private void configurePolicy(SolverConfig solverConfig, VmPlacementConfig vmPlacementConfig) {
+    /**
+     * Checks that the modellers needed by the policy have been set. The modellers are not part of the key of the
+     * cache, so this needs to be checked each time that a factory is requested.
+     *
+     * @param vmPlacementConfig the configuration for the VM placement problem
+     */
+    private void checkModellers(VmPlacementConfig vmPlacementConfig) {
         if (vmPlacementConfig.getPolicy().equals(Policy.PRICE)) {
-            if (VmPlacementConfig.priceModeller == null) {
+            if (vmPlacementConfig.getPriceModeller() == null) {
                 throw new IllegalArgumentException(
                         "The price policy cannot be applied without a pricing model");
             }
         }
         else if (vmPlacementConfig.getPolicy().equals(Policy.ENERGY)) {
-            if (VmPlacementConfig.energyModeller == null) {
+            if (vmPlacementConfig.getEnergyModeller() == null) {
                 throw new IllegalArgumentException(
                         "The energy policy cannot be applied without an energy model");
             }
         }
-        
-        solverConfig.getScoreDirectorFactoryConfig().setSimpleScoreCalculatorClass(
-                policyScoreCalculatorImplementations.get(vmPlacementConfig.getPolicy()));
     }
 
-    private void configureTimeout(SolverConfig solverConfig, VmPlacementConfig vmPlacementConfig) {
-        solverConfig.getTerminationConfig().setMaximumSecondsSpend((long) vmPlacementConfig.getTimeLimitSeconds());
+    private void configureDomain(SolverConfig solverConfig) {
+        solverConfig.setSolutionClass(ClusterState.class);
+        Set<Class<?>> planningEntityClassSet = new HashSet<>();
+        planningEntityClassSet.add(Vm.class);
+        solverConfig.setPlanningEntityClassSet(planningEntityClassSet);
+        solverConfig.setSolverPhaseConfigList(new ArrayList<SolverPhaseConfig>());
+    }
+
+    private void configurePolicy(SolverConfig solverConfig, VmPlacementConfig vmPlacementConfig) {
+        ScoreDirectorFactoryConfig scoreDirectorFactoryConfig = new ScoreDirectorFactoryConfig();
+        scoreDirectorFactoryConfig.setScoreDefinitionType(ScoreDefinitionType.HARD_SOFT);
+        if (vmPlacementConfig.incrementalScoreCalculation()
+                && policyIncrementalScoreCalculatorImplementations.containsKey(vmPlacementConfig.getPolicy())) {
+            scoreDirectorFactoryConfig.setIncrementalScoreCalculatorClass(
+                    policyIncrementalScoreCalculatorImplementations.get(vmPlacementConfig.getPolicy()));
+        }
+        else {
+            scoreDirectorFactoryConfig.setSimpleScoreCalculatorClass(
+                    policyScoreCalculatorImplementations.get(vmPlacementConfig.getPolicy()));
+        }
+        solverConfig.setScoreDirectorFactoryConfig(scoreDirectorFactoryConfig);
     }
 
-    private void configureConstructionHeuristic(SolverConfig solverConfig, VmPlacementConfig vmPlacementConfig) {
-        // If we do not want to use a const. heuristic, remove the default one
-        if (vmPlacementConfig.getConstructionHeuristic() == null) {
-            solverConfig.getSolverPhaseConfigList().remove(0);
+    private void configureTimeout(SolverConfig solverConfig, VmPlacementConfig vmPlacementConfig) {
+        TerminationConfig terminationConfig = new TerminationConfig();
+        Termination termination = vmPlacementConfig.getTermination();
+        if (termination != null && termination.getTimeLimitMillis() != null) {
+            terminationConfig.setMaximumTimeMillisSpend(termination.getTimeLimitMillis());
         }
         else {
-            ConstructionHeuristicSolverPhaseConfig heuristicConfig =
-                    (ConstructionHeuristicSolverPhaseConfig) solverConfig.getSolverPhaseConfigList().toArray()[0];
+            terminationConfig.setMaximumSecondsSpend((long) vmPlacementConfig.getTimeLimitSeconds());
+        }
+
+        // The unimproved time limit and the target are not part of the config. OptaPlanner does not support the
+        // first one, and the second one does not depend on the score. They are applied by a TerminationMonitor.
+        if (termination != null) {
+            terminationConfig.setMaximumStepCount(termination.getStepLimit());
+            terminationConfig.setMaximumUnimprovedStepCount(termination.getUnimprovedStepLimit());
+            terminationConfig.setTerminationCompositionStyle(
+                    optaPlannerCompositionStyles.get(termination.getCompositionStyle()));
+        }
+        solverConfig.setTerminationConfig(terminationConfig);
+    }
+
+    private void configureConstructionHeuristic(SolverConfig solverConfig) {
+        // The construction heuristic can be null if we do not want to apply it.
+        // The forager of the phase never picks early, which is the default.
+        if (constructionHeuristic != null) {
+            ConstructionHeuristicSolverPhaseConfig heuristicConfig = new ConstructionHeuristicSolverPhaseConfig();
             heuristicConfig.setConstructionHeuristicType(optaPlannerConstructionHeuristics.get(
-                    vmPlacementConfig.getConstructionHeuristic()));
+                    constructionHeuristic));
+            solverConfig.getSolverPhaseConfigList().add(heuristicConfig);
         }
     }
 
     private void configureLocalSearch(SolverConfig solverConfig, VmPlacementConfig vmPlacementConfig) {
-        // remove the local search alg included by default. It is in position 0 if the const.heuristic
-        // was removed, and 1 otherwise
-        solverConfig.getSolverPhaseConfigList().remove(solverConfig.getSolverPhaseConfigList().size() - 1);
-
         // Local search can be null if we are only interested in applying the construction step
         if (vmPlacementConfig.getLocalSearch() != null) {
             LocalSearchSolverPhaseConfig localSearchSolverPhaseConfig = new LocalSearchSolverPhaseConfig();
             localSearchSolverPhaseConfig.setAcceptorConfig(vmPlacementConfig.getLocalSearch().getAcceptorConfig());
             localSearchSolverPhaseConfig.setForagerConfig(vmPlacementConfig.getLocalSearch().getForagerConfig());
+            Set<MoveType> moveTypes = vmPlacementConfig.getMoveTypes() != null ?
+                    vmPlacementConfig.getMoveTypes() : defaultMoveTypes;
+            localSearchSolverPhaseConfig.setMoveSelectorConfig(getMoveSelectorConfig(moveTypes));
             solverConfig.getSolverPhaseConfigList().add(localSearchSolverPhaseConfig);
         }
     }
-    
+
+    private MoveSelectorConfig getMoveSelectorConfig(Set<MoveType> moveTypes) {
+        List<MoveSelectorConfig> moveSelectorConfigs = new ArrayList<>();
+        for (MoveType moveType: moveTypes) {
+            moveSelectorConfigs.add(getMoveSelectorConfig(moveType));
+        }
+        if (moveSelectorConfigs.size() == 1) {
+            return moveSelectorConfigs.get(0);
+        }
+        UnionMoveSelectorConfig result = new UnionMoveSelectorConfig();
+        result.setMoveSelectorConfigList(moveSelectorConfigs);
+        return result;
+    }
+
+    private MoveSelectorConfig getMoveSelectorConfig(MoveType moveType) {
+        switch (moveType) {
+            case CHANGE:
+                return filteredBy(new ChangeMoveSelectorConfig(), CapacityChangeMoveFilter.class);
+            case SWAP:
+                return filteredBy(new SwapMoveSelectorConfig(), CapacitySwapMoveFilter.class);
+            case PILLAR_SWAP:
+                return filteredBy(new PillarSwapMoveSelectorConfig(), CapacityPillarSwapMoveFilter.class);
+            case APP_CHANGE:
+                // The factory does not create the moves to hosts that cannot hold the VMs, so it is not filtered
+                MoveListFactoryConfig result = new MoveListFactoryConfig();
+                result.setMoveListFactoryClass(AppChangeMoveListFactory.class);
+                return result;
+            default:
+                throw new IllegalArgumentException("Unknown type of move: " + moveType);
+        }
+    }
+
+    private MoveSelectorConfig filteredBy(MoveSelectorConfig moveSelectorConfig,
+                                          Class<? extends SelectionFilter> filterClass) {
+        List<Class<? extends SelectionFilter>> filterClasses = new ArrayList<>();
+        filterClasses.add(filterClass);
+        moveSelectorConfig.setFilterClassList(filterClasses);
+        return moveSelectorConfig;
+    }
+
+    /**
+     * Key of the cache of solver factories. It contains the attributes of VmPlacementConfig that are used to
+     * configure the solver, and the construction heuristic that is actually applied.
+     */
+    private static class SolverFactoryKey {
+
+        private final Policy policy;
+        private final int timeLimitSeconds;
+        private final Termination termination;
+        private final ConstructionHeuristic constructionHeuristic;
+        private final LocalSearch localSearch;
+        private final Set<MoveType> moveTypes;
+        private final boolean incrementalScoreCalculation;
+        private final Long randomSeed;
+
+        public SolverFactoryKey(VmPlacementConfig vmPlacementConfig, ConstructionHeuristic constructionHeuristic) {
+            this.policy = vmPlacementConfig.getPolicy();
+            this.timeLimitSeconds = vmPlacementConfig.getTimeLimitSeconds();
+            this.termination = vmPlacementConfig.getTermination();
+            this.constructionHeuristic = constructionHeuristic;
+            this.localSearch = vmPlacementConfig.getLocalSearch();
+            this.moveTypes = vmPlacementConfig.getMoveTypes();
+            this.incrementalScoreCalculation = vmPlacementConfig.incrementalScoreCalculation();
+            this.randomSeed = vmPlacementConfig.getRandomSeed();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SolverFactoryKey)) {
+                return false;
+            }
+            SolverFactoryKey other = (SolverFactoryKey) obj;
+            return new EqualsBuilder()
+                    .append(policy, other.policy)
+                    .append(timeLimitSeconds, other.timeLimitSeconds)
+                    .append(termination, other.termination)
+                    .append(constructionHeuristic, other.constructionHeuristic)
+                    .append(localSearch, other.localSearch)
+                    .append(moveTypes, other.moveTypes)
+                    .append(incrementalScoreCalculation, other.incrementalScoreCalculation)
+                    .append(randomSeed, other.randomSeed)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                    .append(policy)
+                    .append(timeLimitSeconds)
+                    .append(termination)
+                    .append(constructionHeuristic)
+                    .append(localSearch)
+                    .append(moveTypes)
+                    .append(incrementalScoreCalculation)
+                    .append(randomSeed)
+                    .toHashCode();
+        }
+
+    }
+
 }
@@ -87,6 +87,84 @@ public class ClusterStateTest {
         }
     }
 
+    @Test
+    public void getVmsDeployedInHostReturnsACopy() {
+        Host host1 = clusterState.getHosts().get(0);
+        List<Vm> vmsDeployedInHost = clusterState.getVmsDeployedInHost(host1);
+        vmsDeployedInHost.clear();
+        assertEquals(2, clusterState.getVmsDeployedInHost(host1).size());
+        assertEquals(2, clusterState.getVms().size());
+    }
+
+    @Test
+    public void getVmsDeployedInHostAfterMovingAVm() {
+        Host host1 = clusterState.getHosts().get(0);
+        Host host2 = clusterState.getHosts().get(1);
+        assertEquals(2, clusterState.getVmsDeployedInHost(host1).size());
+        clusterState.getVms().get(0).setHost(host2);
+        assertEquals(1, clusterState.getVmsDeployedInHost(host1).size());
+        assertEquals(1, clusterState.getVmsDeployedInHost(host2).size());
+        assertEquals(0, clusterState.countIdleHosts());
+    }
+
+    @Test
+    public void getHostUsageAfterMovingAVm() {
+        Host host1 = clusterState.getHosts().get(0);
+        Host host2 = clusterState.getHosts().get(1);
+        assertEquals(2, clusterState.getHostUsage(host1).getNcpusUsed());
+        clusterState.getVms().get(0).setHost(host2);
+        assertEquals(1, clusterState.getHostUsage(host1).getNcpusUsed());
+        assertEquals(1024, clusterState.getHostUsage(host2).getRamMbUsed());
+        clusterState.getVms().get(0).setHost(null);
+        assertEquals(0, clusterState.getHostUsage(host2).getRamMbUsed());
+        assertTrue(clusterState.hostIsIdle(host2));
+    }
+
+    @Test
+    public void vmsRemovedFromTheClusterStateDoNotChangeItsIndex() {
+        Host host1 = clusterState.getHosts().get(0);
+        Host host2 = clusterState.getHosts().get(1);
+        assertEquals(2, clusterState.getVmsDeployedInHost(host1).size());
+        Vm removedVm = clusterState.getVms().get(0);
+        clusterState.setVms(new ArrayList<>(clusterState.getVms().subList(1, 2)));
+        assertEquals(1, clusterState.getVmsDeployedInHost(host1).size());
+        removedVm.setHost(host2);
+        assertEquals(1, clusterState.getVmsDeployedInHost(host1).size());
+        assertTrue(clusterState.hostIsIdle(host2));
+    }
+
+    @Test
+    public void vmsSharedByTwoClusterStatesAreIndexedInBoth() {
+        Host host1 = clusterState.getHosts().get(0);
+        Host host2 = clusterState.getHosts().get(1);
+        ClusterState otherClusterState = new ClusterState();
+        otherClusterState.setHosts(clusterState.getHosts());
+        otherClusterState.setVms(new ArrayList<>(clusterState.getVms()));
+        assertEquals(2, clusterState.getVmsDeployedInHost(host1).size());
+        assertEquals(2, otherClusterState.getVmsDeployedInHost(host1).size());
+        clusterState.getVms().get(0).setHost(host2);
+        assertEquals(1, clusterState.getVmsDeployedInHost(host1).size());
+        assertEquals(1, otherClusterState.getVmsDeployedInHost(host1).size());
+        assertEquals(1, clusterState.getVmsDeployedInHost(host2).size());
+    }
+
+    @Test
+    public void getHostUsage() {
+        for (Host host: clusterState.getHosts()) {
+            HostUsage hostUsage = clusterState.getHostUsage(host);
+            if (host.getId() == (long) 1) {
+                assertEquals(2, hostUsage.getNcpusUsed());
+                assertEquals(2048, hostUsage.getRamMbUsed());
+                assertEquals(2, hostUsage.getDiskGbUsed());
+            }
+            else if (host.getId() == (long) 2) {
+                assertEquals(0, hostUsage.getNcpusUsed());
+                assertEquals(0, hostUsage.getRamMbUsed());
+                assertEquals(0, hostUsage.getDiskGbUsed());
+            }
+        }
+    }
+
     @Test
     public void avgCpusAssignedPerHost() {
         assertEquals(1.0, clusterState.avgCpusAssignedPerHost(), 0.05);
@@ -208,6 +286,46 @@ public class ClusterStateTest {
         assertEquals(1, clusterState1.countVmMigrationsNeeded(clusterState2));
     }
     
+    @Test
+    public void getVmById() {
+        assertEquals((long) 2, (long) clusterState.getVmById(2).getId());
+        assertNull(clusterState.getVmById(3));
+        List<Vm> vms = new ArrayList<>(clusterState.getVms());
+        vms.add(new Vm.Builder((long) 3, 1, 1024, 1).build());
+        clusterState.setVms(vms);
+        assertEquals((long) 3, (long) clusterState.getVmById(3).getId());
+    }
+
+    @Test
+    public void getVmByIdAfterReplacingAVm() {
+        assertNotNull(clusterState.getVmById(2));
+        List<Vm> vms = new ArrayList<>(clusterState.getVms());
+        vms.set(1, new Vm.Builder((long) 3, 1, 1024, 1).build());
+        clusterState.setVms(vms);
+        assertNull(clusterState.getVmById(2));
+        assertEquals((long) 3, (long) clusterState.getVmById(3).getId());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void theListOfVmsCannotBeModified() {
+        clusterState.getVms().set(0, new Vm.Builder((long) 3, 1, 1024, 1).build());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void theListOfHostsCannotBeModified() {
+        clusterState.getHosts().remove(0);
+    }
+
+    @Test
+    public void getHostById() {
+        assertEquals((long) 2, (long) clusterState.getHostById(2).getId());
+        assertNull(clusterState.getHostById(3));
+        List<Host> hosts = new ArrayList<>(clusterState.getHosts());
+        hosts.add(new Host((long) 3, "3", 2, 2048, 2, false));
+        clusterState.setHosts(hosts);
+        assertEquals((long) 3, (long) clusterState.getHostById(3).getId());
+    }
+
     private void initializeTestClusterState(ClusterState clusterState) {
         List<Host> hosts = getTestHosts();
         clusterState.setHosts(hosts);
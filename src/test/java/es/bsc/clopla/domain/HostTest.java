@@ -24,9 +24,9 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.List;
 
-import static junit.framework.TestCase.assertFalse;
-import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author David Ortiz (david.ortiz@bsc.es)
@@ -70,35 +70,21 @@ public class HostTest {
     }
 
     @Test
-    public void missingFixedVmsReturnsTrueWhenTheMissingVmIsNotAssignedToAnyHosts() {
-        List<Vm> vms = new ArrayList<>();
-        Vm vm1 = new Vm.Builder((long) 1, 8, 8192, 1).build();
-        vms.add(vm1);
-
-        host.addFixedVm(1);
-        assertTrue(host.missingFixedVMs(vms));
-    }
-
-    @Test
-    public void missingFixedVmsReturnsTrueWhenTheMissingVmIsAssignedToAnotherHost() {
-        List<Vm> vms = new ArrayList<>();
-        Vm vm1 = new Vm.Builder((long) 1, 8, 8192, 1).build();
-        vm1.setHost(new Host((long) 2, "2", 8, 8192, 1, false));
-        vms.add(vm1);
-
-        host.addFixedVm(1);
-        assertTrue(host.missingFixedVMs(vms));
+    public void hasCapacityFor() {
+        assertTrue(host.hasCapacityFor(new Vm.Builder((long) 1, 4, 4096, 20).build()));
+        assertFalse(host.hasCapacityFor(new Vm.Builder((long) 2, 8, 1024, 1).build()));
+        assertFalse(host.hasCapacityFor(new Vm.Builder((long) 3, 1, 8192, 1).build()));
+        assertFalse(host.hasCapacityFor(new Vm.Builder((long) 4, 1, 1024, 40).build()));
     }
 
     @Test
-    public void missingFixedVmsReturnsFalse() {
+    public void hasCapacityForAGroupOfVms() {
         List<Vm> vms = new ArrayList<>();
-        Vm vm1 = new Vm.Builder((long) 1, 8, 8192, 1).build();
-        vm1.setHost(host);
-        vms.add(vm1);
-
-        host.addFixedVm(1);
-        assertFalse(host.missingFixedVMs(vms));
+        vms.add(new Vm.Builder((long) 1, 2, 2048, 10).build());
+        vms.add(new Vm.Builder((long) 2, 2, 2048, 10).build());
+        assertTrue(host.hasCapacityFor(vms));
+        vms.add(new Vm.Builder((long) 3, 1, 1, 1).build());
+        assertFalse(host.hasCapacityFor(vms));
     }
 
     @Test
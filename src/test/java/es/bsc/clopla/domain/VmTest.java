@@ -23,6 +23,8 @@ import org.junit.Test;
 
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 
 public class VmTest {
     
@@ -46,5 +48,23 @@ public class VmTest {
         vm2.setHost(host2);
         assertFalse(vm1.isInTheSameHost(vm2));
     }
-    
+
+    @Test
+    public void copy() {
+        Host host = new Host((long) 1, "1", 4, 4096, 4, false);
+        Vm vm = new Vm.Builder((long) 1, 2, 1024, 3).appId("app").alphaNumericId("abc").build();
+        vm.setHost(host);
+        vm.setFixed(true);
+        Vm copy = vm.copy();
+        assertNotSame(vm, copy);
+        assertEquals(vm.getId(), copy.getId());
+        assertEquals(2, copy.getNcpus());
+        assertEquals(1024, copy.getRamMb());
+        assertEquals(3, copy.getDiskGb());
+        assertEquals("app", copy.getAppId());
+        assertEquals("abc", copy.getAlphaNumericId());
+        assertEquals(host, copy.getHost());
+        assertTrue(copy.isFixed());
+    }
+
 }
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.domain.cloners;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.PlacementContext;
+import es.bsc.clopla.domain.Vm;
+import org.junit.Before;
+import org.junit.Test;
+import org.optaplanner.core.api.score.buildin.hardmediumsoft.HardMediumSoftScore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that the clones have the properties of the clones made by the default cloner of OptaPlanner:
+ * the planning entities (VMs) and their list are copied, the problem facts (hosts) are shared, and the values of
+ * the planning variables point to the same problem facts.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class ClusterStateSolutionClonerTest {
+
+    private final ClusterState original = new ClusterState();
+    private ClusterState clone;
+
+    @Before
+    public void setUp() {
+        List<Host> hosts = new ArrayList<>();
+        hosts.add(new Host((long) 1, "1", 4, 4096, 4, false));
+        hosts.add(new Host((long) 2, "2", 2, 2048, 2, true));
+        List<Vm> vms = new ArrayList<>();
+        vms.add(new Vm.Builder((long) 1, 1, 1024, 1).appId("app1").alphaNumericId("vm-1").build());
+        vms.add(new Vm.Builder((long) 2, 2, 512, 2).build());
+        vms.add(new Vm.Builder((long) 3, 1, 256, 1).build());
+        vms.get(0).setHost(hosts.get(0));
+        vms.get(1).setHost(hosts.get(1));
+        vms.get(1).setFixed(true);
+        original.setHosts(hosts);
+        original.setVms(vms);
+        original.setScore(HardMediumSoftScore.valueOf(-1, -2, -3));
+        original.setPlacementContext(new PlacementContext(null, null, new ClusterState()));
+        clone = new ClusterStateSolutionCloner().cloneSolution(original);
+    }
+
+    @Test
+    public void vmsAreCopied() {
+        assertNotSame(original.getVms(), clone.getVms());
+        assertEquals(original.getVms().size(), clone.getVms().size());
+        for (int i = 0; i < original.getVms().size(); ++i) {
+            Vm originalVm = original.getVms().get(i);
+            Vm clonedVm = clone.getVms().get(i);
+            assertNotSame(originalVm, clonedVm);
+            assertEquals(originalVm.getId(), clonedVm.getId());
+            assertEquals(originalVm.getNcpus(), clonedVm.getNcpus());
+            assertEquals(originalVm.getRamMb(), clonedVm.getRamMb());
+            assertEquals(originalVm.getDiskGb(), clonedVm.getDiskGb());
+            assertEquals(originalVm.getAppId(), clonedVm.getAppId());
+            assertEquals(originalVm.getAlphaNumericId(), clonedVm.getAlphaNumericId());
+            assertEquals(originalVm.isFixed(), clonedVm.isFixed());
+            assertSame(originalVm.getHost(), clonedVm.getHost());
+        }
+        assertNull(clone.getVms().get(2).getHost());
+    }
+
+    @Test
+    public void hostsScoreAndContextAreShared() {
+        assertSame(original.getHosts(), clone.getHosts());
+        assertSame(original.getScore(), clone.getScore());
+        assertSame(original.getPlacementContext(), clone.getPlacementContext());
+    }
+
+    @Test
+    public void changingTheCloneDoesNotChangeTheOriginal() {
+        clone.getVms().get(0).setHost(original.getHosts().get(1));
+        assertSame(original.getHosts().get(0), original.getVms().get(0).getHost());
+        assertEquals(2, original.getVmsDeployedInHost(original.getHosts().get(0)).size()
+                + original.getVmsDeployedInHost(original.getHosts().get(1)).size());
+        assertEquals(2, clone.getVmsDeployedInHost(clone.getHosts().get(1)).size());
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.domain.filters;
+
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.optaplanner.core.impl.heuristic.selector.move.generic.SwapMove;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class CapacitySwapMoveFilterTest {
+
+    private final CapacitySwapMoveFilter capacitySwapMoveFilter = new CapacitySwapMoveFilter();
+    private final Host smallHost = new Host((long) 1, "1", 4, 4096, 4, false);
+    private final Host bigHost = new Host((long) 2, "2", 8, 4096, 4, false);
+
+    @Test
+    public void acceptsSwapsWhereBothHostsCanHoldTheVms() {
+        assertTrue(capacitySwapMoveFilter.accept(null, getSwapMove(getVm(1, 2, smallHost), getVm(2, 4, bigHost))));
+    }
+
+    @Test
+    public void rejectsSwapsWhereAHostCannotHoldTheVm() {
+        assertFalse(capacitySwapMoveFilter.accept(null, getSwapMove(getVm(1, 2, smallHost), getVm(2, 8, bigHost))));
+        assertFalse(capacitySwapMoveFilter.accept(null, getSwapMove(getVm(1, 8, bigHost), getVm(2, 2, smallHost))));
+    }
+
+    private Vm getVm(long id, int ncpus, Host host) {
+        Vm result = new Vm.Builder(id, ncpus, 1024, 1).build();
+        result.setHost(host);
+        return result;
+    }
+
+    private SwapMove getSwapMove(Vm leftVm, Vm rightVm) {
+        SwapMove result = Mockito.mock(SwapMove.class);
+        Mockito.when(result.getLeftEntity()).thenReturn(leftVm);
+        Mockito.when(result.getRightEntity()).thenReturn(rightVm);
+        return result;
+    }
+
+}
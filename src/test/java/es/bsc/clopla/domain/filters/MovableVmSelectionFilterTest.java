@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.domain.filters;
+
+import es.bsc.clopla.domain.Vm;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class MovableVmSelectionFilterTest {
+
+    private final MovableVmSelectionFilter movableVmSelectionFilter = new MovableVmSelectionFilter();
+
+    @Test
+    public void acceptsVmsThatAreNotFixed() {
+        Vm vm = new Vm.Builder((long) 1, 1, 1, 1).build();
+        assertTrue(movableVmSelectionFilter.accept(null, vm));
+    }
+
+    @Test
+    public void rejectsFixedVms() {
+        Vm vm = new Vm.Builder((long) 1, 1, 1, 1).build();
+        vm.setFixed(true);
+        assertFalse(movableVmSelectionFilter.accept(null, vm));
+    }
+
+}
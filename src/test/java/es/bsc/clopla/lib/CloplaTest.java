@@ -228,6 +228,105 @@ public class CloplaTest {
         assertNotEquals(host2, findVmById(solutionVms, 2).getHost());
     }
     
+    @Test
+    public void warmStartStartsFromThePreviousSolution() {
+        // Initialize hosts
+        List<Host> hosts = new ArrayList<>();
+        Host host1 = new Host((long) 1, "1", 4, 8192, 8, false);
+        Host host2 = new Host((long) 2, "2", 4, 8192, 8, false);
+        hosts.add(host1);
+        hosts.add(host2);
+
+        // Initialize VMs. They are not assigned to any hosts yet.
+        List<Vm> vms = new ArrayList<>();
+        vms.add(new Vm.Builder((long) 1, 1, 1024, 1).build());
+        vms.add(new Vm.Builder((long) 2, 1, 1024, 1).build());
+
+        // In the previous solution, both VMs were deployed in host2
+        List<Vm> previousVms = new ArrayList<>();
+        for (Vm vm: vms) {
+            Vm previousVm = new Vm.Builder(vm.getId(), vm.getNcpus(), vm.getRamMb(), vm.getDiskGb()).build();
+            previousVm.setHost(host2);
+            previousVms.add(previousVm);
+        }
+        ClusterState previousSolution = new ClusterState();
+        previousSolution.setHosts(hosts);
+        previousSolution.setVms(previousVms);
+
+        // Set the configuration. First fit would deploy both VMs in host1.
+        VmPlacementConfig config = new VmPlacementConfig.Builder(
+                Policy.CONSOLIDATION, 5, ConstructionHeuristic.FIRST_FIT, null, false).build();
+
+        // Get the best planning solution
+        ClusterState clusterState = clopla.getBestSolution(hosts, vms, config, previousSolution);
+        List<Vm> solutionVms = clusterState.getVms();
+
+        // Check that the construction heuristic was skipped and the VMs are still in host2
+        assertEquals(host2, findVmById(solutionVms, 1).getHost());
+        assertEquals(host2, findVmById(solutionVms, 2).getHost());
+        assertNull(findVmById(vms, 1).getHost());
+    }
+
+    @Test
+    public void portfolioReturnsTheBestSolutionOfItsConfigs() {
+        // Initialize hosts
+        List<Host> hosts = new ArrayList<>();
+        Host host1 = new Host((long) 1, "1", 2, 8192, 8, false);
+        Host host2 = new Host((long) 2, "2", 2, 8192, 8, false);
+        hosts.add(host1);
+        hosts.add(host2);
+
+        // Initialize VMs
+        List<Vm> vms = new ArrayList<>();
+        vms.add(new Vm.Builder((long) 1, 1, 1024, 1).build());
+        vms.add(new Vm.Builder((long) 2, 1, 1024, 1).build());
+
+        // Set the configurations. Both of them consolidate the 2 VMs in the same host.
+        List<VmPlacementConfig> configs = Arrays.asList(
+                new VmPlacementConfig.Builder(
+                        Policy.CONSOLIDATION, 5, ConstructionHeuristic.FIRST_FIT, null, false).build(),
+                new VmPlacementConfig.Builder(
+                        Policy.CONSOLIDATION, 5, ConstructionHeuristic.BEST_FIT, null, false).build());
+
+        // Get the best planning solution
+        ClusterState clusterState = clopla.getBestSolution(hosts, vms, configs, 2);
+        List<Vm> solutionVms = clusterState.getVms();
+
+        // Check that the VMs have been consolidated and that the VMs received have not been modified
+        assertEquals(findVmById(solutionVms, 1).getHost(), findVmById(solutionVms, 2).getHost());
+        assertNull(findVmById(vms, 1).getHost());
+    }
+
+    @Test
+    public void theVmsReceivedAreNotModified() {
+        // The VM is assigned to a different instance of host1, and it is fixed there by the configuration.
+        // Solving the problem twice with the same lists gives the same placement both times.
+        List<Host> hosts = new ArrayList<>();
+        Host host1 = new Host((long) 1, "1", 4, 8192, 8, false);
+        Host host2 = new Host((long) 2, "2", 4, 8192, 8, false);
+        hosts.add(host1);
+        hosts.add(host2);
+
+        List<Vm> vms = new ArrayList<>();
+        Host otherInstanceOfHost1 = new Host((long) 1, "1", 4, 8192, 8, false);
+        Vm fixedVm = new Vm.Builder((long) 1, 1, 1024, 1).build();
+        fixedVm.setHost(otherInstanceOfHost1);
+        vms.add(fixedVm);
+        vms.add(new Vm.Builder((long) 2, 1, 1024, 1).build());
+
+        VmPlacementConfig config = new VmPlacementConfig.Builder(
+                Policy.CONSOLIDATION, 5, ConstructionHeuristic.FIRST_FIT, null, true).build();
+        ClusterState firstSolution = clopla.getBestSolution(hosts, vms, config);
+        ClusterState secondSolution = clopla.getBestSolution(hosts, vms, config);
+
+        assertSame(otherInstanceOfHost1, fixedVm.getHost());
+        assertFalse(fixedVm.isFixed());
+        assertNull(findVmById(vms, 2).getHost());
+        assertSame(host1, findVmById(firstSolution.getVms(), 1).getHost());
+        assertSame(host1, findVmById(firstSolution.getVms(), 2).getHost());
+        assertSame(host1, findVmById(secondSolution.getVms(), 2).getHost());
+    }
+
     private Vm findVmById(List<Vm> vms, long id) {
         for (Vm vm: vms) {
             if (vm.getId() == id) {
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package es.bsc.clopla.modellers;
+
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class CachedEnergyModellerTest {
+
+    private static final double DOUBLE_COMPARISON_DELTA = 0.01;
+
+    private final Host host1 = new Host((long) 1, "1", 8, 8192, 8, false);
+    private final Host host2 = new Host((long) 2, "2", 4, 4096, 4, false);
+    private final Vm vm1 = new Vm.Builder((long) 1, 2, 2048, 2).build();
+    private final Vm vm2 = new Vm.Builder((long) 2, 1, 1024, 1).build();
+
+    @Test
+    public void theModellerIsOnlyQueriedForNewVmSets() {
+        CountingEnergyModeller energyModeller = new CountingEnergyModeller();
+        CachedEnergyModeller cachedEnergyModeller = new CachedEnergyModeller(energyModeller);
+
+        assertEquals(10.0, cachedEnergyModeller.getPowerConsumption(host1, Arrays.asList(vm1)),
+                DOUBLE_COMPARISON_DELTA);
+        assertEquals(10.0, cachedEnergyModeller.getPowerConsumption(host1, Arrays.asList(vm1)),
+                DOUBLE_COMPARISON_DELTA);
+        assertEquals(20.0, cachedEnergyModeller.getPowerConsumption(host1, Arrays.asList(vm1, vm2)),
+                DOUBLE_COMPARISON_DELTA);
+        assertEquals(10.0, cachedEnergyModeller.getPowerConsumption(host2, Arrays.asList(vm1)),
+                DOUBLE_COMPARISON_DELTA);
+        assertEquals(0.0, cachedEnergyModeller.getPowerConsumption(host2, new ArrayList<Vm>()),
+                DOUBLE_COMPARISON_DELTA);
+
+        assertEquals(4, energyModeller.calls);
+        assertEquals(1, cachedEnergyModeller.getHits());
+        assertEquals(4, cachedEnergyModeller.getMisses());
+        assertEquals(0.2, cachedEnergyModeller.getHitRate(), DOUBLE_COMPARISON_DELTA);
+    }
+
+    @Test
+    public void theLeastRecentlyUsedEntryIsEvictedWhenTheCacheIsFull() {
+        CountingEnergyModeller energyModeller = new CountingEnergyModeller();
+        CachedEnergyModeller cachedEnergyModeller = new CachedEnergyModeller(energyModeller, 1);
+
+        cachedEnergyModeller.getPowerConsumption(host1, Arrays.asList(vm1));
+        cachedEnergyModeller.getPowerConsumption(host2, Arrays.asList(vm2));
+        cachedEnergyModeller.getPowerConsumption(host1, Arrays.asList(vm1));
+
+        assertEquals(3, energyModeller.calls);
+        assertEquals(0.0, cachedEnergyModeller.getHitRate(), DOUBLE_COMPARISON_DELTA);
+    }
+
+    @Test
+    public void theMaxEntriesCanBeRaisedButNotLowered() {
+        CountingEnergyModeller energyModeller = new CountingEnergyModeller();
+        CachedEnergyModeller cachedEnergyModeller = new CachedEnergyModeller(energyModeller, 1);
+        cachedEnergyModeller.ensureMaxEntries(2);
+        cachedEnergyModeller.ensureMaxEntries(1);
+        assertEquals(2, cachedEnergyModeller.getMaxEntries());
+
+        cachedEnergyModeller.getPowerConsumption(host1, Arrays.asList(vm1));
+        cachedEnergyModeller.getPowerConsumption(host2, Arrays.asList(vm2));
+        cachedEnergyModeller.getPowerConsumption(host1, Arrays.asList(vm1));
+
+        assertEquals(2, energyModeller.calls);
+    }
+
+    @Test
+    public void vmsAndHostsThatChangeTheirSizeAreNotAnsweredFromTheCache() {
+        CountingEnergyModeller energyModeller = new CountingEnergyModeller();
+        CachedEnergyModeller cachedEnergyModeller = new CachedEnergyModeller(energyModeller);
+        Vm biggerVm1 = new Vm.Builder((long) 1, 4, 2048, 2).build();
+        Host biggerHost1 = new Host((long) 1, "1", 16, 8192, 8, false);
+
+        cachedEnergyModeller.getPowerConsumption(host1, Arrays.asList(vm1));
+        cachedEnergyModeller.getPowerConsumption(host1, Arrays.asList(biggerVm1));
+        cachedEnergyModeller.getPowerConsumption(biggerHost1, Arrays.asList(vm1));
+
+        assertEquals(3, energyModeller.calls);
+        assertEquals(0, cachedEnergyModeller.getHits());
+    }
+
+    @Test(timeout = 10000)
+    public void theCacheCanBeReadWhileTheModellerIsQueried() throws InterruptedException {
+        final CountDownLatch modellerQueried = new CountDownLatch(1);
+        final CountDownLatch modellerReleased = new CountDownLatch(1);
+        EnergyModeller slowEnergyModeller = new EnergyModeller() {
+            @Override
+            public double getPowerConsumption(Host host, List<Vm> vmsDeployedInHost) {
+                if (host == host2) {
+                    modellerQueried.countDown();
+                    try {
+                        modellerReleased.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return 10.0*vmsDeployedInHost.size();
+            }
+        };
+        final CachedEnergyModeller cachedEnergyModeller = new CachedEnergyModeller(slowEnergyModeller);
+        cachedEnergyModeller.getPowerConsumption(host1, Arrays.asList(vm1));
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                cachedEnergyModeller.getPowerConsumption(host2, Arrays.asList(vm2));
+            }
+        });
+        thread.start();
+        modellerQueried.await();
+
+        // The other thread is still querying the modeller
+        assertEquals(10.0, cachedEnergyModeller.getPowerConsumption(host1, Arrays.asList(vm1)),
+                DOUBLE_COMPARISON_DELTA);
+        modellerReleased.countDown();
+        thread.join();
+        assertEquals(1, cachedEnergyModeller.getHits());
+        assertEquals(2, cachedEnergyModeller.getMisses());
+    }
+
+    private static class CountingEnergyModeller implements EnergyModeller {
+
+        private int calls = 0;
+
+        @Override
+        public double getPowerConsumption(Host host, List<Vm> vmsDeployedInHost) {
+            ++calls;
+            return 10.0*vmsDeployedInHost.size();
+        }
+
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement;
+
+import es.bsc.clopla.domain.ConstructionHeuristic;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import es.bsc.clopla.placement.config.Policy;
+import es.bsc.clopla.placement.config.VmPlacementConfig;
+import es.bsc.clopla.placement.partitioning.RoundRobinHostPartitioner;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class PartitionedVmPlacementProblemTest {
+
+    @Test
+    public void vmsAreInThePartitionOfTheirHostOrInTheOneWithMostFreeCpus() {
+        Host host1 = new Host((long) 1, "1", 4, 4096, 4, false);
+        Host host2 = new Host((long) 2, "2", 4, 4096, 4, false);
+        List<Host> hosts = Arrays.asList(host1, host2);
+
+        List<Vm> vms = new ArrayList<>();
+        Vm vm1 = new Vm.Builder((long) 1, 1, 1024, 1).build();
+        vm1.setHost(host1);
+        Vm vm2 = new Vm.Builder((long) 2, 3, 1024, 1).build();
+        Vm vm3 = new Vm.Builder((long) 3, 2, 1024, 1).build();
+        vms.add(vm1);
+        vms.add(vm2);
+        vms.add(vm3);
+
+        VmPlacementConfig config = new VmPlacementConfig.Builder(
+                Policy.CONSOLIDATION, 1, ConstructionHeuristic.FIRST_FIT, null, false).build();
+        List<PartitionedVmPlacementProblem.Partition> partitions = new PartitionedVmPlacementProblem(
+                hosts, vms, config, new RoundRobinHostPartitioner(2), 2, null).getPartitions();
+
+        // vm1 is in host1. vm2 is the most difficult VM, so it goes to host2, which has more free CPUs.
+        // After that, host1 has 3 free CPUs and host2 has 1, so vm3 goes to host1.
+        assertEquals(2, partitions.size());
+        assertEquals(Arrays.asList(vm1, vm3), partitions.get(0).getVms());
+        assertEquals(Arrays.asList(vm2), partitions.get(1).getVms());
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement;
+
+import es.bsc.clopla.domain.ConstructionHeuristic;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import es.bsc.clopla.placement.config.Policy;
+import es.bsc.clopla.placement.config.VmPlacementConfig;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class VmPlacementPortfolioTest {
+
+    private final List<Host> hosts = new ArrayList<>();
+    private final List<Vm> vms = new ArrayList<>();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void portfolioNeedsAtLeastOneConfig() {
+        new VmPlacementPortfolio(hosts, vms, new ArrayList<VmPlacementConfig>(), 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void portfolioNeedsAtLeastOneThread() {
+        new VmPlacementPortfolio(hosts, vms, Arrays.asList(getConfig(Policy.CONSOLIDATION)), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void allTheConfigsOfThePortfolioNeedTheSamePolicy() {
+        new VmPlacementPortfolio(hosts, vms,
+                Arrays.asList(getConfig(Policy.CONSOLIDATION), getConfig(Policy.DISTRIBUTION)), 2);
+    }
+
+    private VmPlacementConfig getConfig(Policy policy) {
+        return new VmPlacementConfig.Builder(policy, 1, ConstructionHeuristic.FIRST_FIT, null, false).build();
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package es.bsc.clopla.placement;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.ConstructionHeuristic;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import es.bsc.clopla.placement.config.Policy;
+import es.bsc.clopla.placement.config.Termination;
+import es.bsc.clopla.placement.config.VmPlacementConfig;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.optaplanner.core.api.score.buildin.hardmediumsoft.HardMediumSoftScore;
+import org.optaplanner.core.api.solver.Solver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class VmPlacementSessionTest {
+
+    private static final long MAX_WAIT_MILLIS = 10000;
+
+    private final ClusterState startingState = new ClusterState();
+    private final VmPlacementConfig config = new VmPlacementConfig.Builder(
+            Policy.CONSOLIDATION, 1, ConstructionHeuristic.FIRST_FIT, null, false).build();
+
+    @Test
+    public void stopStopsTheSession() {
+        Solver solver = Mockito.mock(Solver.class);
+        Mockito.when(solver.getBestSolution()).thenReturn(startingState);
+
+        VmPlacementSession session = new VmPlacementSession(solver, startingState, config);
+        session.start();
+        session.stop();
+        assertTrue(session.isStopped());
+        assertSame(startingState, session.getBestSolution());
+    }
+
+    @Test
+    public void theFailureOfAChangeIsRethrown() throws InterruptedException {
+        // The solver solves the starting state, and then it fails while applying the change that removes the VM
+        IllegalStateException failure = new IllegalStateException("The change failed");
+        Solver solver = Mockito.mock(Solver.class);
+        Mockito.when(solver.getBestSolution()).thenReturn(startingState);
+        Mockito.doNothing().doThrow(failure).when(solver).solve();
+
+        VmPlacementSession session = new VmPlacementSession(solver, startingState, config);
+        session.start();
+        session.removeVm(1);
+        waitUntilStopped(session);
+
+        try {
+            session.getBestSolution();
+            fail("getBestSolution() did not rethrow the failure");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+        try {
+            session.removeVm(2);
+            fail("removeVm() did not rethrow the failure");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+        try {
+            session.stop();
+            fail("stop() did not rethrow the failure");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+    }
+
+    @Test
+    public void theSolverRunsAgainWithoutChangesWhenItImprovesTheBestSolution() throws InterruptedException {
+        // The first run finds a solution with a score, so the solver runs again and fails without any change
+        IllegalStateException failure = new IllegalStateException("The second run failed");
+        ClusterState improvedState = new ClusterState();
+        improvedState.setScore(HardMediumSoftScore.valueOf(0, 0, 0));
+        Solver solver = Mockito.mock(Solver.class);
+        Mockito.when(solver.getBestSolution()).thenReturn(improvedState);
+        Mockito.doNothing().doThrow(failure).when(solver).solve();
+
+        VmPlacementSession session = new VmPlacementSession(solver, startingState, config);
+        session.start();
+        waitUntilStopped(session);
+
+        try {
+            session.getBestSolution();
+            fail("The solver did not run again");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+    }
+
+    @Test
+    public void aVmOfTheInitialStateCanBeRemovedWhenThereIsAMaxMigrationsTarget() throws InterruptedException {
+        List<Host> hosts = new ArrayList<>();
+        Host host1 = new Host((long) 1, "1", 4, 8192, 8, false);
+        hosts.add(host1);
+        hosts.add(new Host((long) 2, "2", 4, 8192, 8, false));
+
+        List<Vm> vms = new ArrayList<>();
+        for (long id = 1; id <= 2; ++id) {
+            Vm vm = new Vm.Builder(id, 1, 1024, 1).build();
+            vm.setHost(host1);
+            vms.add(vm);
+        }
+
+        VmPlacementConfig config = new VmPlacementConfig.Builder(
+                Policy.CONSOLIDATION, 1, ConstructionHeuristic.FIRST_FIT, null, false)
+                .termination(new Termination.Builder().maxMigrationsTarget(0).build())
+                .build();
+        VmPlacementSession session = new VmPlacementProblem(hosts, vms, config).startSession();
+        try {
+            // The new VM needs to be placed, so the solver finds new best solutions after removing VM 1, and the
+            // migrations to reach them are counted from an initial state that still has VM 1
+            session.removeVm(1);
+            session.addVm(new Vm.Builder((long) 3, 1, 1024, 1).build());
+            ClusterState bestSolution = waitForVm(session, 3);
+            assertNull(bestSolution.getVmById(1));
+            assertNotNull(bestSolution.getVmById(3));
+            assertNotNull(bestSolution.getVmById(3).getHost());
+        } finally {
+            session.stop();
+        }
+    }
+
+    /**
+     * Waits until the best solution of a session has a VM assigned to a host. getBestSolution() rethrows the
+     * failure of the session, if there is one.
+     */
+    private ClusterState waitForVm(VmPlacementSession session, long vmId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + MAX_WAIT_MILLIS;
+        ClusterState result = session.getBestSolution();
+        while ((result.getVmById(vmId) == null || result.getVmById(vmId).getHost() == null)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            result = session.getBestSolution();
+        }
+        return result;
+    }
+
+    private void waitUntilStopped(VmPlacementSession session) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + MAX_WAIT_MILLIS;
+        while (!session.isStopped() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(session.isStopped());
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement;
+
+import es.bsc.clopla.domain.ClusterState;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.optaplanner.core.api.solver.Solver;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class VmPlacementTaskTest {
+
+    @Test
+    public void getReturnsTheBestSolutionOfTheSolver() throws InterruptedException {
+        ClusterState startingState = new ClusterState();
+        ClusterState solution = new ClusterState();
+        Solver solver = Mockito.mock(Solver.class);
+        Mockito.when(solver.getBestSolution()).thenReturn(solution);
+
+        VmPlacementTask task = new VmPlacementTask(solver, startingState, null);
+        task.start();
+        assertSame(solution, task.get());
+        assertTrue(task.isDone());
+    }
+
+    @Test
+    public void getReturnsTheStartingStateWhenTerminatedBeforeStarting() throws InterruptedException {
+        ClusterState startingState = new ClusterState();
+        Solver solver = Mockito.mock(Solver.class);
+        Mockito.when(solver.getBestSolution()).thenReturn(new ClusterState());
+
+        VmPlacementTask task = new VmPlacementTask(solver, startingState, null);
+        task.terminateEarly();
+        task.start();
+        assertSame(startingState, task.get(10, TimeUnit.SECONDS));
+        assertTrue(task.isDone());
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.changes;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class AddHostChangeTest {
+
+    private final Host onHost = new Host((long) 1, "1", 4, 4096, 4, false);
+    private final Host offHost = new Host((long) 2, "2", 4, 4096, 4, true);
+
+    @Test
+    public void hostThatIsOnIsAddedBeforeTheHostsThatAreOff() {
+        Host newHost = new Host((long) 3, "3", 4, 4096, 4, false);
+        ClusterState clusterState = getClusterState();
+        new AddHostChange(newHost).doChange(getScoreDirector(clusterState));
+        assertEquals(Arrays.asList(onHost, newHost, offHost), clusterState.getHosts());
+    }
+
+    @Test
+    public void hostThatIsOffIsAddedAtTheEnd() {
+        Host newHost = new Host((long) 3, "3", 4, 4096, 4, true);
+        ClusterState clusterState = getClusterState();
+        new AddHostChange(newHost).doChange(getScoreDirector(clusterState));
+        assertEquals(Arrays.asList(onHost, offHost, newHost), clusterState.getHosts());
+    }
+
+    private ClusterState getClusterState() {
+        List<Host> hosts = new ArrayList<>();
+        hosts.add(onHost);
+        hosts.add(offHost);
+        ClusterState result = new ClusterState();
+        result.setHosts(hosts);
+        result.setVms(new ArrayList<Vm>());
+        return result;
+    }
+
+    private ScoreDirector getScoreDirector(ClusterState clusterState) {
+        ScoreDirector result = Mockito.mock(ScoreDirector.class);
+        Mockito.when(result.getWorkingSolution()).thenReturn(clusterState);
+        return result;
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.changes;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class AddVmChangeTest {
+
+    @Test
+    public void vmIsAddedAndAssignedToTheHostOfTheWorkingSolution() {
+        Host workingHost = new Host((long) 1, "1", 4, 4096, 4, false);
+        List<Host> hosts = new ArrayList<>();
+        hosts.add(workingHost);
+        ClusterState clusterState = new ClusterState();
+        clusterState.setHosts(hosts);
+        clusterState.setVms(new ArrayList<Vm>());
+
+        Vm vm = new Vm.Builder((long) 1, 1, 1024, 1).build();
+        vm.setHost(new Host((long) 1, "1", 4, 4096, 4, false));
+
+        ScoreDirector scoreDirector = Mockito.mock(ScoreDirector.class);
+        Mockito.when(scoreDirector.getWorkingSolution()).thenReturn(clusterState);
+        new AddVmChange(vm).doChange(scoreDirector);
+
+        assertEquals(1, clusterState.getVms().size());
+        assertSame(workingHost, clusterState.getVmById(1).getHost());
+        assertEquals(1, clusterState.getVmsDeployedInHost(workingHost).size());
+    }
+
+    @Test
+    public void vmAssignedToAHostThatIsNotInTheWorkingSolutionIsAddedUnassignedAndNotFixed() {
+        ClusterState clusterState = new ClusterState();
+        clusterState.setHosts(new ArrayList<Host>());
+        clusterState.setVms(new ArrayList<Vm>());
+
+        Vm vm = new Vm.Builder((long) 1, 1, 1024, 1).build();
+        vm.setHost(new Host((long) 1, "1", 4, 4096, 4, false));
+        vm.setFixed(true);
+
+        ScoreDirector scoreDirector = Mockito.mock(ScoreDirector.class);
+        Mockito.when(scoreDirector.getWorkingSolution()).thenReturn(clusterState);
+        new AddVmChange(vm).doChange(scoreDirector);
+
+        assertNull(clusterState.getVmById(1).getHost());
+        assertFalse(clusterState.getVmById(1).isFixed());
+    }
+
+}
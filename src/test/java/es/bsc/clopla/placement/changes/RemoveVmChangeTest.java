@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.changes;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class RemoveVmChangeTest {
+
+    @Test
+    public void vmIsRemoved() {
+        Host host = new Host((long) 1, "1", 4, 4096, 4, false);
+        List<Host> hosts = new ArrayList<>();
+        hosts.add(host);
+        List<Vm> vms = new ArrayList<>();
+        Vm vm1 = new Vm.Builder((long) 1, 1, 1024, 1).build();
+        Vm vm2 = new Vm.Builder((long) 2, 1, 1024, 1).build();
+        vm1.setHost(host);
+        vm2.setHost(host);
+        vms.add(vm1);
+        vms.add(vm2);
+        ClusterState clusterState = new ClusterState();
+        clusterState.setHosts(hosts);
+        clusterState.setVms(vms);
+
+        ScoreDirector scoreDirector = Mockito.mock(ScoreDirector.class);
+        Mockito.when(scoreDirector.getWorkingSolution()).thenReturn(clusterState);
+        new RemoveVmChange(1).doChange(scoreDirector);
+
+        assertEquals(1, clusterState.getVms().size());
+        assertNull(clusterState.getVmById(1));
+        assertEquals(1, clusterState.getVmsDeployedInHost(host).size());
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.moves;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import org.junit.Test;
+import org.optaplanner.core.impl.move.Move;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class AppChangeMoveListFactoryTest {
+
+    @Test
+    public void createsOneMovePerHostForEachAppWithSeveralMovableVms() {
+        Host host1 = new Host((long) 1, "1", 4, 4096, 4, false);
+        Host host2 = new Host((long) 2, "2", 4, 4096, 4, false);
+        Vm app1Vm1 = new Vm.Builder((long) 1, 1, 1024, 1).appId("app1").build();
+        Vm app1Vm2 = new Vm.Builder((long) 2, 1, 1024, 1).appId("app1").build();
+        Vm app2Vm = new Vm.Builder((long) 3, 1, 1024, 1).appId("app2").build(); // Only one VM in the app
+        Vm app3Vm1 = new Vm.Builder((long) 4, 1, 1024, 1).appId("app3").build();
+        Vm app3Vm2 = new Vm.Builder((long) 5, 1, 1024, 1).appId("app3").build();
+        app3Vm2.setFixed(true); // Leaves only one movable VM in the app
+        Vm vmWithoutApp = new Vm.Builder((long) 6, 1, 1024, 1).build();
+
+        ClusterState clusterState = new ClusterState();
+        clusterState.setHosts(Arrays.asList(host1, host2));
+        List<Vm> vms = new ArrayList<>(Arrays.asList(app1Vm1, app1Vm2, app2Vm, app3Vm1, app3Vm2, vmWithoutApp));
+        clusterState.setVms(vms);
+
+        List<Move> moves = new AppChangeMoveListFactory().createMoveList(clusterState);
+        assertEquals(2, moves.size());
+        assertTrue(moves.contains(new AppChangeMove(Arrays.asList(app1Vm1, app1Vm2), host1)));
+        assertTrue(moves.contains(new AppChangeMove(Arrays.asList(app1Vm1, app1Vm2), host2)));
+        assertEquals(Arrays.asList(host1), new ArrayList<>(moves.get(0).getPlanningValues()));
+    }
+
+    @Test
+    public void doesNotCreateMovesToHostsThatCannotHoldAllTheVmsOfTheApp() {
+        Host smallHost = new Host((long) 1, "1", 2, 4096, 4, false);
+        Host bigHost = new Host((long) 2, "2", 4, 4096, 4, false);
+        Vm vm1 = new Vm.Builder((long) 1, 2, 1024, 1).appId("app1").build();
+        Vm vm2 = new Vm.Builder((long) 2, 2, 1024, 1).appId("app1").build();
+
+        ClusterState clusterState = new ClusterState();
+        clusterState.setHosts(Arrays.asList(smallHost, bigHost));
+        clusterState.setVms(new ArrayList<>(Arrays.asList(vm1, vm2)));
+
+        List<Move> moves = new AppChangeMoveListFactory().createMoveList(clusterState);
+        assertEquals(1, moves.size());
+        assertTrue(moves.contains(new AppChangeMove(Arrays.asList(vm1, vm2), bigHost)));
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.moves;
+
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.optaplanner.core.impl.move.Move;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class AppChangeMoveTest {
+
+    private final Host host1 = new Host((long) 1, "1", 4, 4096, 4, false);
+    private final Host host2 = new Host((long) 2, "2", 4, 4096, 4, false);
+    private final ScoreDirector scoreDirector = Mockito.mock(ScoreDirector.class);
+
+    @Test
+    public void moveIsNotDoableWhenAllTheVmsAreAlreadyInTheHost() {
+        Vm vm1 = getVmInHost(1, host1);
+        Vm vm2 = getVmInHost(2, host1);
+        assertFalse(new AppChangeMove(Arrays.asList(vm1, vm2), host1).isMoveDoable(scoreDirector));
+        assertTrue(new AppChangeMove(Arrays.asList(vm1, vm2), host2).isMoveDoable(scoreDirector));
+    }
+
+    @Test
+    public void undoMoveRestoresTheOriginalHosts() {
+        Vm vm1 = getVmInHost(1, host1);
+        Vm vm2 = getVmInHost(2, host2);
+        Move move = new AppChangeMove(Arrays.asList(vm1, vm2), host2);
+        Move undoMove = move.createUndoMove(scoreDirector);
+
+        move.doMove(scoreDirector);
+        assertSame(host2, vm1.getHost());
+        assertSame(host2, vm2.getHost());
+        Mockito.verify(scoreDirector).beforeVariableChanged(vm1, "host");
+        Mockito.verify(scoreDirector).afterVariableChanged(vm1, "host");
+
+        undoMove.doMove(scoreDirector);
+        assertSame(host1, vm1.getHost());
+        assertSame(host2, vm2.getHost());
+    }
+
+    @Test
+    public void undoingTheUndoMoveDoesTheMoveAgain() {
+        Vm vm1 = getVmInHost(1, host1);
+        Vm vm2 = getVmInHost(2, host2);
+        Move move = new AppChangeMove(Arrays.asList(vm1, vm2), host2);
+        Move undoMove = move.createUndoMove(scoreDirector);
+        move.doMove(scoreDirector);
+
+        Move redoMove = undoMove.createUndoMove(scoreDirector);
+        undoMove.doMove(scoreDirector);
+        redoMove.doMove(scoreDirector);
+        assertSame(host2, vm1.getHost());
+        assertSame(host2, vm2.getHost());
+    }
+
+    private Vm getVmInHost(long id, Host host) {
+        Vm result = new Vm.Builder(id, 1, 1024, 1).appId("app1").build();
+        result.setHost(host);
+        return result;
+    }
+
+}
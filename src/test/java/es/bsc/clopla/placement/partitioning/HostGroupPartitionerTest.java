@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.partitioning;
+
+import es.bsc.clopla.domain.Host;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class HostGroupPartitionerTest {
+
+    @Test
+    public void thereIsAPartitionForEachGroup() {
+        Host host1 = new Host((long) 1, "1", 4, 4096, 4, false);
+        Host host2 = new Host((long) 2, "2", 4, 4096, 4, false);
+        Host host3 = new Host((long) 3, "3", 4, 4096, 4, false);
+        Host host4 = new Host((long) 4, "4", 4, 4096, 4, false);
+        Map<Long, String> groupOfHosts = new HashMap<>();
+        groupOfHosts.put((long) 1, "rack1");
+        groupOfHosts.put((long) 2, "rack2");
+        groupOfHosts.put((long) 3, "rack1");
+
+        List<List<Host>> partitions = new HostGroupPartitioner(groupOfHosts)
+                .partition(Arrays.asList(host1, host2, host3, host4));
+        assertEquals(3, partitions.size());
+        assertEquals(Arrays.asList(host1, host3), partitions.get(0));
+        assertEquals(Arrays.asList(host2), partitions.get(1));
+        assertEquals(Arrays.asList(host4), partitions.get(2)); // hosts without group
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.partitioning;
+
+import es.bsc.clopla.domain.Host;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class RoundRobinHostPartitionerTest {
+
+    private final Host host1 = new Host((long) 1, "1", 4, 4096, 4, false);
+    private final Host host2 = new Host((long) 2, "2", 4, 4096, 4, false);
+    private final Host host3 = new Host((long) 3, "3", 4, 4096, 4, false);
+
+    @Test
+    public void hostsAreDealtToThePartitions() {
+        List<List<Host>> partitions = new RoundRobinHostPartitioner(2).partition(Arrays.asList(host1, host2, host3));
+        assertEquals(2, partitions.size());
+        assertEquals(Arrays.asList(host1, host3), partitions.get(0));
+        assertEquals(Arrays.asList(host2), partitions.get(1));
+    }
+
+    @Test
+    public void thereAreNoEmptyPartitionsWhenThereAreFewHosts() {
+        List<List<Host>> partitions = new RoundRobinHostPartitioner(4).partition(Arrays.asList(host1, host2));
+        assertEquals(2, partitions.size());
+        assertEquals(0, new RoundRobinHostPartitioner(4).partition(new ArrayList<Host>()).size());
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package es.bsc.clopla.placement.scorecalculators;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.PlacementContext;
+import es.bsc.clopla.domain.Vm;
+import es.bsc.clopla.domain.cloners.ClusterStateSolutionCloner;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class CompactClusterStateTest {
+
+    private final Random random = new Random(7);
+
+    @Test
+    public void scoresAreTheSameAsTheOnesOfTheClusterState() {
+        for (int i = 0; i < 20; ++i) {
+            ClusterState clusterState = getRandomClusterState();
+            assertSameScores(clusterState, new CompactClusterState(clusterState));
+        }
+    }
+
+    @Test
+    public void scoresAreTheSameAfterRefreshingAClone() {
+        ClusterState clusterState = getRandomClusterState();
+        CompactClusterState compactClusterState = new CompactClusterState(clusterState);
+        ClusterState clone = new ClusterStateSolutionCloner().cloneSolution(clusterState);
+        for (Vm vm: clone.getVms()) {
+            vm.setHost(getRandomHost(clone.getHosts()));
+        }
+        assertSame(compactClusterState, CompactClusterState.refresh(compactClusterState, clone));
+        assertSameScores(clone, compactClusterState);
+    }
+
+    @Test
+    public void refreshingOnlyMarksTheHostsOfTheMovedVmsAsChanged() {
+        ClusterState clusterState = getRandomClusterState();
+        CompactClusterState compactClusterState = new CompactClusterState(clusterState);
+        assertTrue(compactClusterState.hostChanged(0));
+        compactClusterState.clearChangedHosts();
+
+        Vm vm = clusterState.getVms().get(0);
+        int previousHost = compactClusterState.getHostIndex(vm.getHost());
+        int newHost = (previousHost + 1) % clusterState.getHosts().size();
+        vm.setHost(clusterState.getHosts().get(newHost));
+        assertTrue(compactClusterState.refresh(clusterState));
+        for (int i = 0; i < compactClusterState.getHostsCount(); ++i) {
+            assertEquals(i == previousHost || i == newHost, compactClusterState.hostChanged(i));
+        }
+        assertSameScores(clusterState, compactClusterState);
+    }
+
+    @Test
+    public void aNewCompactStateIsCreatedWhenTheHostsChange() {
+        ClusterState clusterState = getRandomClusterState();
+        CompactClusterState compactClusterState = new CompactClusterState(clusterState);
+        List<Host> hosts = new ArrayList<>(clusterState.getHosts());
+        hosts.add(new Host((long) 100, "100", 4, 4096, 4, false));
+        clusterState.setHosts(hosts);
+        assertFalse(compactClusterState.isCreatedFrom(clusterState));
+        assertFalse(compactClusterState.refresh(clusterState));
+        CompactClusterState refreshed = CompactClusterState.refresh(compactClusterState, clusterState);
+        assertTrue(refreshed.isCreatedFrom(clusterState));
+        assertSameScores(clusterState, refreshed);
+    }
+
+    @Test
+    public void assigningVmsUpdatesTheScores() {
+        ClusterState clusterState = getRandomClusterState();
+        CompactClusterState compactClusterState = new CompactClusterState(clusterState);
+        for (Vm vm: clusterState.getVms()) {
+            Host host = getRandomHost(clusterState.getHosts());
+            vm.setHost(host);
+            compactClusterState.assign(compactClusterState.getVmIndex(vm), compactClusterState.getHostIndex(host));
+            assertSameScores(clusterState, compactClusterState);
+        }
+    }
+
+    @Test
+    public void vmsRemovedAfterTheInitialStateDoNotCountAsMigrations() {
+        // The migrations are the last soft level of the scores, and TerminationMonitor reads its target from there
+        ClusterState clusterState = getRandomClusterState();
+        List<Vm> vms = new ArrayList<>();
+        for (Vm vm: clusterState.getVms()) {
+            Vm initialVm = clusterState.getPlacementContext().getInitialClusterState().getVmById(vm.getId());
+            if (vm.isInTheSameHost(initialVm)) {
+                vms.add(vm);
+            }
+        }
+        clusterState.setVms(vms);
+        assertEquals(0, new CompactClusterState(clusterState).countVmMigrationsNeeded());
+    }
+
+    private void assertSameScores(ClusterState clusterState, CompactClusterState compactClusterState) {
+        ClusterState initialClusterState = clusterState.getPlacementContext().getInitialClusterState();
+        assertEquals(ScoreCalculatorCommon.getClusterOverCapacityScore(clusterState),
+                compactClusterState.getOverCapacityScore(), 0);
+        assertEquals(clusterState.countIdleHosts(), compactClusterState.countIdleHosts());
+        assertEquals(clusterState.countOffHosts(), compactClusterState.countOffHosts());
+        assertEquals(clusterState.calculateCumulativeUnusedCpuPerc(),
+                compactClusterState.calculateCumulativeUnusedCpuPerc());
+        assertEquals(clusterState.calculateStdDevCpuPercUsedPerHost(),
+                compactClusterState.calculateStdDevCpuPercUsedPerHost(), 0);
+        assertEquals(initialClusterState.countVmMigrationsNeeded(clusterState),
+                compactClusterState.countVmMigrationsNeeded());
+        assertEquals(countSameAppVmPairs(clusterState), compactClusterState.countSameAppVmPairs());
+    }
+
+    private int countSameAppVmPairs(ClusterState clusterState) {
+        int result = 0;
+        for (Host host: clusterState.getHosts()) {
+            List<String> appIds = clusterState.getIdsOfAppsDeployedInHost(host);
+            for (int i = 0; i < appIds.size(); ++i) {
+                for (int j = 0; j < appIds.size(); ++j) {
+                    if (i != j && appIds.get(i).equals(appIds.get(j))) {
+                        ++result;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private ClusterState getRandomClusterState() {
+        List<Host> hosts = new ArrayList<>();
+        for (int i = 0; i < 10; ++i) {
+            hosts.add(new Host((long) i, Integer.toString(i), 1 + random.nextInt(8), 1024*(1 + random.nextInt(8)),
+                    1 + random.nextInt(8), random.nextBoolean()));
+        }
+
+        List<Vm> initialVms = new ArrayList<>();
+        List<Vm> vms = new ArrayList<>();
+        for (int i = 0; i < 30; ++i) {
+            Vm.Builder builder = new Vm.Builder((long) i, 1 + random.nextInt(4), 512*(1 + random.nextInt(4)),
+                    1 + random.nextInt(4));
+            if (random.nextBoolean()) {
+                builder.appId("app" + random.nextInt(3));
+            }
+            Vm vm = builder.build();
+            vm.setHost(getRandomHost(hosts));
+            initialVms.add(vm);
+            Vm movedVm = vm.copy();
+            movedVm.setHost(getRandomHost(hosts));
+            vms.add(movedVm);
+        }
+
+        ClusterState initialClusterState = new ClusterState();
+        initialClusterState.setHosts(hosts);
+        initialClusterState.setVms(initialVms);
+        ClusterState result = new ClusterState();
+        result.setHosts(hosts);
+        result.setVms(vms);
+        result.setPlacementContext(new PlacementContext(null, null, initialClusterState));
+        return result;
+    }
+
+    private Host getRandomHost(List<Host> hosts) {
+        int i = random.nextInt(hosts.size() + 1);
+        return i == hosts.size() ? null : hosts.get(i); // Some VMs are not assigned
+    }
+
+}
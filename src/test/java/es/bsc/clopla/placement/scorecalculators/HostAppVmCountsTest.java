@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package es.bsc.clopla.placement.scorecalculators;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class HostAppVmCountsTest {
+
+    @Test
+    public void countsStartAtZero() {
+        assertEquals(0, new HostAppVmCounts(3).get(5, 2));
+    }
+
+    @Test
+    public void incrementAndDecrementReturnTheCountBeforeTheChange() {
+        HostAppVmCounts counts = new HostAppVmCounts(3);
+        assertEquals(0, counts.increment(1, 2));
+        assertEquals(1, counts.increment(1, 2));
+        assertEquals(0, counts.increment(2, 1));
+        assertEquals(2, counts.get(1, 2));
+        assertEquals(2, counts.decrement(1, 2));
+        assertEquals(1, counts.decrement(1, 2));
+        assertEquals(0, counts.get(1, 2));
+        assertEquals(1, counts.get(2, 1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cannotDecrementACountThatIsZero() {
+        new HostAppVmCounts(3).decrement(1, 2);
+    }
+
+    @Test
+    public void countsAreTheSameAsTheOnesOfAMap() {
+        // Many increments and decrements, so the table grows and its elements are moved back when others are removed
+        int hostsCount = 200;
+        int appsCount = 20;
+        HostAppVmCounts counts = new HostAppVmCounts(appsCount);
+        Map<Long, Integer> expectedCounts = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; ++i) {
+            int host = random.nextInt(hostsCount);
+            int app = random.nextInt(appsCount);
+            long key = (long) host*appsCount + app;
+            Integer expectedCount = expectedCounts.get(key);
+            int n = expectedCount == null ? 0 : expectedCount;
+            if (n > 0 && random.nextBoolean()) {
+                assertEquals(n, counts.decrement(host, app));
+                expectedCounts.put(key, n - 1);
+            }
+            else {
+                assertEquals(n, counts.increment(host, app));
+                expectedCounts.put(key, n + 1);
+            }
+        }
+        for (int host = 0; host < hostsCount; ++host) {
+            for (int app = 0; app < appsCount; ++app) {
+                Integer expectedCount = expectedCounts.get((long) host*appsCount + app);
+                assertEquals(expectedCount == null ? 0 : (int) expectedCount, counts.get(host, app));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package es.bsc.clopla.placement.scorecalculators;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.PlacementContext;
+import es.bsc.clopla.domain.Vm;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class IncrementalScoreCalculatorConsolidationTest {
+
+    private static final int MIGRATIONS_SOFT_LEVEL = 3;
+
+    private final IncrementalScoreCalculatorConsolidation incrementalScoreCalculator =
+            new IncrementalScoreCalculatorConsolidation();
+    private final ScoreCalculatorConsolidation scoreCalculator = new ScoreCalculatorConsolidation();
+    private final IncrementalScoreCalculatorMigrationsTester migrationsTester =
+            new IncrementalScoreCalculatorMigrationsTester(
+                    incrementalScoreCalculator, scoreCalculator, MIGRATIONS_SOFT_LEVEL);
+
+    @Test
+    public void scoreTest() {
+        ClusterState clusterState = getTestClusterState();
+        incrementalScoreCalculator.resetWorkingSolution(clusterState);
+        assertEquals(-4, incrementalScoreCalculator.calculateScore().getHardScore(0));
+        assertEquals(1, incrementalScoreCalculator.calculateScore().getSoftScore(0));
+        assertEquals(2, incrementalScoreCalculator.calculateScore().getSoftScore(1));
+        assertEquals(-275, incrementalScoreCalculator.calculateScore().getSoftScore(2));
+    }
+
+    @Test
+    public void scoreIsTheSameAsTheSimpleScoreAfterMovingVms() {
+        ClusterState clusterState = getTestClusterState();
+        incrementalScoreCalculator.resetWorkingSolution(clusterState);
+        for (Vm vm: clusterState.getVms()) {
+            for (Host host: clusterState.getHosts()) {
+                incrementalScoreCalculator.beforeVariableChanged(vm, "host");
+                vm.setHost(host);
+                incrementalScoreCalculator.afterVariableChanged(vm, "host");
+                assertEquals(scoreCalculator.calculateScore(clusterState),
+                        incrementalScoreCalculator.calculateScore());
+            }
+        }
+    }
+
+    @Test
+    public void migrationsAreCountedFromTheInitialState() {
+        migrationsTester.assertMigrationsAreCountedFromTheInitialState(getTestClusterState());
+    }
+
+    @Test
+    public void scoreIsTheSameAsTheSimpleScoreAfterMovingVmsThatNeedMigrations() {
+        ClusterState clusterState = getTestClusterState();
+        Vm newVm = new Vm.Builder((long) 4, 1, 1024, 1).build();
+        newVm.setHost(clusterState.getHosts().get(0));
+        migrationsTester.assertSameScoreAfterMovingVmsThatNeedMigrations(clusterState, newVm);
+    }
+
+    private ClusterState getTestClusterState() {
+        // Create hosts
+        List<Host> hosts = new ArrayList<>();
+        Host host1 = new Host((long) 1, "1", 8, 8192, 8, false);
+        Host host2 = new Host((long) 2, "2", 4, 4096, 4, false);
+        Host host3 = new Host((long) 3, "3", 2, 2048, 2, false);
+        Host host4 = new Host((long) 4, "4", 1, 1024, 1, true);
+        hosts.add(host1);
+        hosts.add(host2);
+        hosts.add(host3);
+        hosts.add(host4);
+
+        // Create VMs
+        List<Vm> vms = new ArrayList<>();
+        Vm vm1 = new Vm.Builder((long) 1, 4, 4096, 4).build();
+        Vm vm2 = new Vm.Builder((long) 2, 5, 5120, 5).build();
+        Vm vm3 = new Vm.Builder((long) 3, 1, 5120, 1).build();
+        vm1.setHost(host1);
+        vm2.setHost(host1);
+        vm3.setHost(host2);
+        vms.add(vm1);
+        vms.add(vm2);
+        vms.add(vm3);
+
+        // Build the solution
+        ClusterState result = new ClusterState();
+        result.setHosts(hosts);
+        result.setVms(vms);
+        result.setPlacementContext(getPlacementContext());
+        return result;
+    }
+
+    private PlacementContext getPlacementContext() {
+        ClusterState initialClusterState = new ClusterState();
+        initialClusterState.setVms(new ArrayList<Vm>());
+        initialClusterState.setHosts(new ArrayList<Host>());
+        return new PlacementContext(null, null, initialClusterState);
+    }
+
+}
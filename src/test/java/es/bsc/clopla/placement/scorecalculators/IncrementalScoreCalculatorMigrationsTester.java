@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package es.bsc.clopla.placement.scorecalculators;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.PlacementContext;
+import es.bsc.clopla.domain.Vm;
+import org.optaplanner.core.api.score.buildin.bendable.BendableScore;
+import org.optaplanner.core.impl.score.director.incremental.IncrementalScoreCalculator;
+import org.optaplanner.core.impl.score.director.simple.SimpleScoreCalculator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that an incremental score calculator counts the VM migrations needed from the initial state of the
+ * cluster in the same way as the simple score calculator of the same policy.
+ * It is shared by the tests of the incremental score calculators, which only differ in their test cluster states.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+class IncrementalScoreCalculatorMigrationsTester {
+
+    private final IncrementalScoreCalculator<ClusterState> incrementalScoreCalculator;
+    private final SimpleScoreCalculator<ClusterState> scoreCalculator;
+    private final int migrationsSoftLevel;
+
+    /**
+     * Class constructor.
+     *
+     * @param incrementalScoreCalculator the incremental score calculator under test
+     * @param scoreCalculator the simple score calculator of the same policy
+     * @param migrationsSoftLevel the soft level of the score that contains the migrations
+     */
+    public IncrementalScoreCalculatorMigrationsTester(
+            IncrementalScoreCalculator<ClusterState> incrementalScoreCalculator,
+            SimpleScoreCalculator<ClusterState> scoreCalculator, int migrationsSoftLevel) {
+        this.incrementalScoreCalculator = incrementalScoreCalculator;
+        this.scoreCalculator = scoreCalculator;
+        this.migrationsSoftLevel = migrationsSoftLevel;
+    }
+
+    /**
+     * Checks the migrations counted for a cluster state of at least 3 VMs, compared with the initial state
+     * returned by getInitialClusterState().
+     *
+     * @param clusterState the cluster state
+     */
+    public void assertMigrationsAreCountedFromTheInitialState(ClusterState clusterState) {
+        clusterState.setPlacementContext(new PlacementContext(null, null, getInitialClusterState(clusterState)));
+        incrementalScoreCalculator.resetWorkingSolution(clusterState);
+        // VM 2 was in another host, and VM 3 was in a host that has been removed
+        assertEquals(2, getMigrations());
+        assertEquals(scoreCalculator.calculateScore(clusterState), incrementalScoreCalculator.calculateScore());
+    }
+
+    /**
+     * Adds a VM that is not part of the initial state to a cluster state of at least 3 VMs, and then moves every
+     * VM to every host, checking after each move that the incremental score is the same as the simple one.
+     *
+     * @param clusterState the cluster state
+     * @param newVm the VM to add. It should be assigned to a host of the cluster state
+     */
+    public void assertSameScoreAfterMovingVmsThatNeedMigrations(ClusterState clusterState, Vm newVm) {
+        ClusterState initialClusterState = getInitialClusterState(clusterState);
+        clusterState.setPlacementContext(new PlacementContext(null, null, initialClusterState));
+        incrementalScoreCalculator.resetWorkingSolution(clusterState);
+
+        // The new VM is not in the initial state, so it never needs a migration
+        List<Vm> vms = new ArrayList<>(clusterState.getVms());
+        vms.add(newVm);
+        incrementalScoreCalculator.beforeEntityAdded(newVm);
+        clusterState.setVms(vms);
+        incrementalScoreCalculator.afterEntityAdded(newVm);
+        assertEquals(scoreCalculator.calculateScore(clusterState), incrementalScoreCalculator.calculateScore());
+
+        for (Vm vm: clusterState.getVms()) {
+            for (Host host: clusterState.getHosts()) {
+                incrementalScoreCalculator.beforeVariableChanged(vm, "host");
+                vm.setHost(host);
+                incrementalScoreCalculator.afterVariableChanged(vm, "host");
+                assertEquals(scoreCalculator.calculateScore(clusterState),
+                        incrementalScoreCalculator.calculateScore());
+                assertEquals(initialClusterState.countVmMigrationsNeeded(clusterState), getMigrations());
+            }
+        }
+    }
+
+    /**
+     * Returns an initial state for the given cluster state. In the initial state, VM 1 is in its current host, VM 2
+     * is in a different host, and VM 3 is in a host that is no longer part of the cluster.
+     *
+     * @param clusterState the cluster state
+     * @return the initial state
+     */
+    public static ClusterState getInitialClusterState(ClusterState clusterState) {
+        List<Host> hosts = new ArrayList<>(clusterState.getHosts());
+        Host removedHost = new Host((long) 5, "5", 8, 8192, 8, false);
+        hosts.add(removedHost);
+
+        List<Vm> vms = new ArrayList<>();
+        for (Vm vm: clusterState.getVms()) {
+            vms.add(vm.copy());
+        }
+        Host hostOfVm2 = vms.get(1).getHost();
+        vms.get(1).setHost(hosts.get((hosts.indexOf(hostOfVm2) + 1) % clusterState.getHosts().size()));
+        vms.get(2).setHost(removedHost);
+
+        ClusterState result = new ClusterState();
+        result.setHosts(hosts);
+        result.setVms(vms);
+        return result;
+    }
+
+    private int getMigrations() {
+        return ((BendableScore) incrementalScoreCalculator.calculateScore()).getSoftScore(migrationsSoftLevel);
+    }
+
+}
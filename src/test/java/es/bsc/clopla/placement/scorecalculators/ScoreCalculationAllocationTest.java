@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package es.bsc.clopla.placement.scorecalculators;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.PlacementContext;
+import es.bsc.clopla.domain.Vm;
+import es.bsc.clopla.modellers.CachedEnergyModeller;
+import es.bsc.clopla.modellers.EnergyModeller;
+import es.bsc.clopla.modellers.PriceModeller;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.optaplanner.core.api.score.Score;
+import org.optaplanner.core.api.score.buildin.bendable.BendableScore;
+import org.optaplanner.core.api.score.buildin.hardmediumsoft.HardMediumSoftScore;
+import org.optaplanner.core.impl.score.director.incremental.IncrementalScoreCalculator;
+import org.optaplanner.core.impl.score.director.simple.SimpleScoreCalculator;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that, once warmed up, calculating a score only allocates the score object.
+ * The bytes allocated by the calculations are compared with the bytes allocated by creating the same number of
+ * scores of the same shape, so any other allocation, like an iterator or a boxed value, makes the tests fail.
+ * The bytes allocated by the thread are read from the ThreadMXBean of HotSpot, so the tests are skipped in JVMs
+ * that do not support it.
+ *
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class ScoreCalculationAllocationTest {
+
+    private static final int WARM_UP_CALCULATIONS = 20000;
+    private static final int MEASURED_CALCULATIONS = 20000;
+    // Covers the noise of the measurement itself, not anything allocated per calculation
+    private static final long MAX_EXTRA_BYTES = 1024;
+
+    private static final EnergyModeller constantEnergyModeller = new EnergyModeller() {
+        @Override
+        public double getPowerConsumption(Host host, List<Vm> vmsDeployedInHost) {
+            return 100 + vmsDeployedInHost.size();
+        }
+    };
+
+    private static final PriceModeller constantPriceModeller = new PriceModeller() {
+        @Override
+        public double getCost(Host host, List<Vm> vmsDeployedInHost) {
+            return 10 + vmsDeployedInHost.size();
+        }
+    };
+
+    private com.sun.management.ThreadMXBean threadMXBean;
+    private ClusterState clusterState;
+    private List<Host> originalHosts;
+    private Score<?> lastScore; // Keeps the scores reachable, so the JIT cannot remove their allocation
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        clusterState = getTestClusterState();
+        originalHosts = new ArrayList<>();
+        for (Vm vm: clusterState.getVms()) {
+            originalHosts.add(vm.getHost());
+        }
+    }
+
+    @Test
+    public void simpleScoreCalculatorsOnlyAllocateTheScore() {
+        assertOnlyTheScoreIsAllocated(new ScoreCalculatorConsolidation());
+        assertOnlyTheScoreIsAllocated(new ScoreCalculatorDistribution());
+        assertOnlyTheScoreIsAllocated(new ScoreCalculatorGroupByApp());
+        assertOnlyTheScoreIsAllocated(new ScoreCalculatorRandom());
+        assertOnlyTheScoreIsAllocated(new ScoreCalculatorEnergy());
+        assertOnlyTheScoreIsAllocated(new ScoreCalculatorPrice());
+    }
+
+    @Test
+    public void incrementalScoreCalculatorsOnlyAllocateTheScore() {
+        assertOnlyTheScoreIsAllocated(new IncrementalScoreCalculatorConsolidation());
+        assertOnlyTheScoreIsAllocated(new IncrementalScoreCalculatorDistribution());
+        assertOnlyTheScoreIsAllocated(new IncrementalScoreCalculatorGroupByApp());
+    }
+
+    private void assertOnlyTheScoreIsAllocated(final SimpleScoreCalculator<ClusterState> scoreCalculator) {
+        long allocatedBytes = measureAllocatedBytes(new Calculation() {
+            @Override
+            public void run(Vm vm, Host host) {
+                vm.setHost(host);
+                lastScore = scoreCalculator.calculateScore(clusterState);
+            }
+        });
+        assertOnlyTheScoresWereAllocated(scoreCalculator, allocatedBytes);
+    }
+
+    private void assertOnlyTheScoreIsAllocated(final IncrementalScoreCalculator<ClusterState> scoreCalculator) {
+        scoreCalculator.resetWorkingSolution(clusterState);
+        long allocatedBytes = measureAllocatedBytes(new Calculation() {
+            @Override
+            public void run(Vm vm, Host host) {
+                scoreCalculator.beforeVariableChanged(vm, "host");
+                vm.setHost(host);
+                scoreCalculator.afterVariableChanged(vm, "host");
+                lastScore = scoreCalculator.calculateScore();
+            }
+        });
+        assertOnlyTheScoresWereAllocated(scoreCalculator, allocatedBytes);
+    }
+
+    /**
+     * Checks that the bytes allocated by the calculations of a score calculator are not more than the bytes needed
+     * to create the same number of scores like the last one that it calculated.
+     *
+     * @param scoreCalculator the score calculator
+     * @param allocatedBytes the bytes allocated by the calculations
+     */
+    private void assertOnlyTheScoresWereAllocated(Object scoreCalculator, long allocatedBytes) {
+        final Score<?> calculatedScore = lastScore;
+        long scoreBytes = measureAllocatedBytes(new Calculation() {
+            @Override
+            public void run(Vm vm, Host host) {
+                lastScore = newScoreLike(calculatedScore);
+            }
+        });
+        assertTrue(scoreCalculator.getClass().getSimpleName() + " allocated " + allocatedBytes + " bytes in "
+                        + MEASURED_CALCULATIONS + " calculations, but its scores only take " + scoreBytes + " bytes",
+                allocatedBytes <= scoreBytes + MAX_EXTRA_BYTES);
+    }
+
+    private static Score<?> newScoreLike(Score<?> score) {
+        if (score instanceof BendableScore) {
+            BendableScore bendableScore = (BendableScore) score;
+            return BendableScore.valueOf(new int[bendableScore.getHardLevelCount()],
+                    new int[bendableScore.getSoftLevelCount()]);
+        }
+        if (score instanceof HardMediumSoftScore) {
+            return HardMediumSoftScore.valueOf(0, 0, 0);
+        }
+        throw new IllegalArgumentException("Unexpected score type: " + score.getClass().getName());
+    }
+
+    /**
+     * Runs a calculation many times, moving a VM each time, and returns the bytes allocated by the measured
+     * calculations once the calculation has been warmed up. Each VM is moved to the next host and then back to its original host, so
+     * the states repeat, as they do in a local search, and the cache of the energy modeller gets hits.
+     *
+     * @param calculation the calculation
+     * @return the bytes allocated by the measured calculations
+     */
+    private long measureAllocatedBytes(Calculation calculation) {
+        runCalculations(calculation, WARM_UP_CALCULATIONS);
+        long threadId = Thread.currentThread().getId();
+        long allocatedBytesBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        runCalculations(calculation, MEASURED_CALCULATIONS);
+        return threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBytesBefore;
+    }
+
+    private void runCalculations(Calculation calculation, int calculations) {
+        List<Vm> vms = clusterState.getVms();
+        List<Host> hosts = clusterState.getHosts();
+        for (int i = 0; i < calculations; ++i) {
+            int vmIndex = (i/2) % vms.size();
+            Host originalHost = originalHosts.get(vmIndex);
+            Host host = i % 2 == 1 ? originalHost : hosts.get((hosts.indexOf(originalHost) + 1) % hosts.size());
+            calculation.run(vms.get(vmIndex), host);
+        }
+    }
+
+    private ClusterState getTestClusterState() {
+        List<Host> hosts = new ArrayList<>();
+        for (int i = 0; i < 20; ++i) {
+            hosts.add(new Host((long) i, Integer.toString(i), 16, 16384, 160, i >= 15));
+        }
+
+        List<Vm> vms = new ArrayList<>();
+        List<Vm> initialVms = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            Vm vm = new Vm.Builder((long) i, 1 + i % 4, 1024, 10).appId("app" + i % 7).build();
+            vm.setHost(hosts.get(i % 15));
+            vms.add(vm);
+            initialVms.add(vm.copy());
+        }
+
+        ClusterState initialClusterState = new ClusterState();
+        initialClusterState.setHosts(hosts);
+        initialClusterState.setVms(initialVms);
+        ClusterState result = new ClusterState();
+        result.setHosts(hosts);
+        result.setVms(vms);
+        result.setPlacementContext(new PlacementContext(
+                new CachedEnergyModeller(constantEnergyModeller), constantPriceModeller, initialClusterState));
+        return result;
+    }
+
+    private interface Calculation {
+        void run(Vm vm, Host host);
+    }
+
+}
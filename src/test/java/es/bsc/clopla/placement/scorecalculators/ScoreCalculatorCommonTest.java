@@ -48,25 +48,6 @@ public class ScoreCalculatorCommonTest {
                 getClusterWithoutOverbooking()), DOUBLE_COMPARISON_DELTA);
     }
 
-    @Test
-    public void penaltyScoreForFixedVmsIsZeroWhenFixedVmsHaveNotBeenMoved() {
-        assertEquals(0, ScoreCalculatorCommon.getClusterPenaltyScoreForFixedVms(
-                getClusterWithFixedVmsNotMigrated()), DOUBLE_COMPARISON_DELTA);
-    }
-    
-    @Test
-    public void penaltyScoreForFixedVmsIsPositiveWhenFixedVmsHaveBeenMoved() {
-        assertEquals(-ScoreCalculatorCommon.PENALTY_FOR_MOVING_FIXED_VMS,
-                ScoreCalculatorCommon.getClusterPenaltyScoreForFixedVms(getClusterWithFixedVmsMigrated()),
-                DOUBLE_COMPARISON_DELTA);
-    }
-    
-    @Test
-    public void penaltyScoreForFixedVmsIsZeroWhenThereAreNotFixedVms() {
-        assertEquals(0, ScoreCalculatorCommon.getClusterPenaltyScoreForFixedVms(
-                getClusterWithoutFixedVms()), DOUBLE_COMPARISON_DELTA);
-    }
-    
     private ClusterState getClusterWithOverbooking() {
         List<Host> hosts = new ArrayList<>();
         Host host1 = new Host((long) 1, "1", 1, 1024, 1, false);
@@ -104,46 +85,4 @@ public class ScoreCalculatorCommonTest {
         return result;
     }
     
-    private ClusterState getClusterWithFixedVmsMigrated() {
-        List<Host> hosts = new ArrayList<>();
-        Host host1 = new Host((long) 1, "1", 2, 2048, 2, false);
-        Host host2 = new Host((long) 2, "2", 1, 1024, 1, false);
-        hosts.add(host1);
-        hosts.add(host2);
-
-        List<Vm> vms = new ArrayList<>();
-        Vm vm1 = new Vm.Builder((long) 1, 1, 1024, 1).build();
-        vm1.setHost(host2);
-        vms.add(vm1);
-
-        host1.addFixedVm((long) 1);
-
-        ClusterState result = new ClusterState();
-        result.setHosts(hosts);
-        result.setVms(vms);
-        return result;
-    }
-    
-    private ClusterState getClusterWithFixedVmsNotMigrated() {
-        List<Host> hosts = new ArrayList<>();
-        Host host1 = new Host((long) 1, "1", 2, 2048, 2, false);
-        hosts.add(host1);
-
-        List<Vm> vms = new ArrayList<>();
-        Vm vm1 = new Vm.Builder((long) 1, 1, 1024, 1).build();
-        vm1.setHost(host1);
-        vms.add(vm1);
-        
-        host1.addFixedVm((long) 1);
-
-        ClusterState result = new ClusterState();
-        result.setHosts(hosts);
-        result.setVms(vms);
-        return result;
-    }
-    
-    private ClusterState getClusterWithoutFixedVms() {
-        return getClusterWithoutOverbooking();
-    }
-    
 }
@@ -21,11 +21,9 @@ package es.bsc.clopla.placement.scorecalculators;
 
 import es.bsc.clopla.domain.ClusterState;
 import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.PlacementContext;
 import es.bsc.clopla.domain.Vm;
 import es.bsc.clopla.modellers.EnergyModeller;
-import es.bsc.clopla.placement.config.VmPlacementConfig;
-import org.junit.AfterClass;
-import org.junit.BeforeClass;
 import org.junit.Test;
 import org.mockito.Mockito;
 
@@ -43,22 +41,8 @@ public class ScoreCalculatorEnergyTest {
     private final Host host2 = new Host((long) 2, "2", 4, 4096, 4, false);
     private final Vm vm1 = new Vm.Builder((long) 1, 2, 2048, 2).build();
     private final Vm vm2 = new Vm.Builder((long) 2, 1, 1024, 1).build();
+    private final EnergyModeller energyModeller = Mockito.mock(EnergyModeller.class);
 
-    @BeforeClass
-    public static void onceExecutedBeforeAll() {
-        ClusterState initialClusterState = new ClusterState();
-        initialClusterState.setVms(new ArrayList<Vm>());
-        initialClusterState.setHosts(new ArrayList<Host>());
-        VmPlacementConfig.initialClusterState.set(initialClusterState);
-    }
-    
-    @AfterClass
-    public static void onceExecutedAfterAll() {
-        VmPlacementConfig.energyModeller.set(null); // It was mocked, we need to null it again so it does
-                                                    // interfere with other tests.
-        VmPlacementConfig.initialClusterState.set(null);
-    }
-    
     @Test
     public void scoreTest() {
         ClusterState testClusterState = getTestClusterState();
@@ -75,11 +59,38 @@ public class ScoreCalculatorEnergyTest {
         assertEquals(-30, scoreCalculatorEnergy.calculateScore(testClusterState).getMediumScore());
     }
     
+    @Test
+    public void theModellerIsOnlyQueriedForTheHostsWhoseVmsChanged() {
+        final int[] queriesPerHost = new int[2];
+        EnergyModeller countingEnergyModeller = new EnergyModeller() {
+            @Override
+            public double getPowerConsumption(Host host, List<Vm> vmsDeployedInHost) {
+                ++queriesPerHost[host.getId().intValue() - 1];
+                return 10 + 5*vmsDeployedInHost.size();
+            }
+        };
+        ClusterState clusterState = getTestClusterState();
+        ClusterState initialClusterState = clusterState.getPlacementContext().getInitialClusterState();
+        clusterState.setPlacementContext(new PlacementContext(countingEnergyModeller, null, initialClusterState));
+        ScoreCalculatorEnergy scoreCalculatorEnergy = new ScoreCalculatorEnergy();
+
+        assertEquals(-30, scoreCalculatorEnergy.calculateScore(clusterState).getMediumScore());
+        assertEquals(-30, scoreCalculatorEnergy.calculateScore(clusterState).getMediumScore());
+        assertEquals(1, queriesPerHost[0]);
+        assertEquals(1, queriesPerHost[1]);
+
+        vm2.setHost(host1);
+        assertEquals(-30, scoreCalculatorEnergy.calculateScore(clusterState).getMediumScore());
+        assertEquals(new ScoreCalculatorEnergy().calculateScore(clusterState),
+                scoreCalculatorEnergy.calculateScore(clusterState));
+        assertEquals(3, queriesPerHost[0]);
+        assertEquals(3, queriesPerHost[1]);
+    }
+
     private void mockEnergyModeller(List<Vm> vmsInHost1, List<Vm> vmsInHost2) {
-        VmPlacementConfig.energyModeller.set(Mockito.mock(EnergyModeller.class));
-        Mockito.when(VmPlacementConfig.energyModeller.get().getPowerConsumption(host1, vmsInHost1))
+        Mockito.when(energyModeller.getPowerConsumption(host1, vmsInHost1))
                 .thenReturn(20.0);
-        Mockito.when(VmPlacementConfig.energyModeller.get().getPowerConsumption(host2, vmsInHost2))
+        Mockito.when(energyModeller.getPowerConsumption(host2, vmsInHost2))
                 .thenReturn(10.0);
     }
 
@@ -97,7 +108,15 @@ public class ScoreCalculatorEnergyTest {
         ClusterState result = new ClusterState();
         result.setHosts(hosts);
         result.setVms(vms);
+        result.setPlacementContext(getPlacementContext());
         return result;
     }
+
+    private PlacementContext getPlacementContext() {
+        ClusterState initialClusterState = new ClusterState();
+        initialClusterState.setVms(new ArrayList<Vm>());
+        initialClusterState.setHosts(new ArrayList<Host>());
+        return new PlacementContext(energyModeller, null, initialClusterState);
+    }
     
 }
@@ -21,10 +21,8 @@ package es.bsc.clopla.placement.scorecalculators;
 
 import es.bsc.clopla.domain.ClusterState;
 import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.PlacementContext;
 import es.bsc.clopla.domain.Vm;
-import es.bsc.clopla.placement.config.VmPlacementConfig;
-import org.junit.AfterClass;
-import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.util.ArrayList;
@@ -39,19 +37,6 @@ public class ScoreCalculatorGroupByAppTest {
 
     private final ScoreCalculatorGroupByApp scoreCalculatorGroupByApp = new ScoreCalculatorGroupByApp();
 
-    @BeforeClass
-    public static void onceExecutedBeforeAll() {
-        ClusterState initialClusterState = new ClusterState();
-        initialClusterState.setVms(new ArrayList<Vm>());
-        initialClusterState.setHosts(new ArrayList<Host>());
-        VmPlacementConfig.initialClusterState.set(initialClusterState);
-    }
-
-    @AfterClass
-    public static void onceExecutedAfterAll() {
-        VmPlacementConfig.initialClusterState.set(null);
-    }
-    
     @Test
     public void scoreTest() {
         ClusterState clusterState = getTestClusterState();
@@ -88,7 +73,15 @@ public class ScoreCalculatorGroupByAppTest {
         ClusterState result = new ClusterState();
         result.setHosts(hosts);
         result.setVms(vms);
+        result.setPlacementContext(getPlacementContext());
         return result;
     }
 
+    private PlacementContext getPlacementContext() {
+        ClusterState initialClusterState = new ClusterState();
+        initialClusterState.setVms(new ArrayList<Vm>());
+        initialClusterState.setHosts(new ArrayList<Host>());
+        return new PlacementContext(null, null, initialClusterState);
+    }
+
 }
@@ -21,11 +21,10 @@ package es.bsc.clopla.placement.scorecalculators;
 
 import es.bsc.clopla.domain.ClusterState;
 import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.PlacementContext;
 import es.bsc.clopla.domain.Vm;
+import es.bsc.clopla.modellers.AbstractBulkPriceModeller;
 import es.bsc.clopla.modellers.PriceModeller;
-import es.bsc.clopla.placement.config.VmPlacementConfig;
-import org.junit.AfterClass;
-import org.junit.BeforeClass;
 import org.junit.Test;
 import org.mockito.Mockito;
 
@@ -43,25 +42,11 @@ public class ScoreCalculatorPriceTest {
     private final Host host2 = new Host((long) 2, "2", 4, 4096, 4, false);
     private final Vm vm1 = new Vm.Builder((long) 1, 2, 2048, 2).build();
     private final Vm vm2 = new Vm.Builder((long) 2, 1, 1024, 1).build();
+    private final PriceModeller priceModeller = Mockito.mock(PriceModeller.class);
 
-    @BeforeClass
-    public static void onceExecutedBeforeAll() {
-        ClusterState initialClusterState = new ClusterState();
-        initialClusterState.setVms(new ArrayList<Vm>());
-        initialClusterState.setHosts(new ArrayList<Host>());
-        VmPlacementConfig.initialClusterState.set(initialClusterState);
-    }
-    
-    @AfterClass
-    public static void onceExecutedAfterAll() {
-        VmPlacementConfig.priceModeller.set(null); // It was mocked, we need to null it again so it does
-                                                   // interfere with other tests.
-        VmPlacementConfig.initialClusterState.set(null);
-    }
-    
     @Test
     public void scoreTest() {
-        ClusterState testClusterState = getTestClusterState();
+        ClusterState testClusterState = getTestClusterState(priceModeller);
         List<Vm> vmsInHost1 = new ArrayList<>();
         vmsInHost1.add(vm1);
         List<Vm> vmsInHost2 = new ArrayList<>();
@@ -75,15 +60,33 @@ public class ScoreCalculatorPriceTest {
         assertEquals(-30, scoreCalculatorPrice.calculateScore(testClusterState).getMediumScore());
     }
 
+    @Test
+    public void scoreTestWithBulkPriceModeller() {
+        ClusterState testClusterState = getTestClusterState(new AbstractBulkPriceModeller() {
+            @Override
+            public double[] getCosts(List<Host> hosts, int[] ncpusUsed, int[] ramMbUsed, int[] diskGbUsed) {
+                double[] result = new double[hosts.size()];
+                for (int i = 0; i < hosts.size(); ++i) {
+                    result[i] = 10*ncpusUsed[i];
+                }
+                return result;
+            }
+        });
+
+        ScoreCalculatorPrice scoreCalculatorPrice = new ScoreCalculatorPrice();
+
+        assertEquals(0, scoreCalculatorPrice.calculateScore(testClusterState).getHardScore());
+        assertEquals(-30, scoreCalculatorPrice.calculateScore(testClusterState).getMediumScore());
+    }
+
     private void mockPriceModeller(List<Vm> vmsInHost1, List<Vm> vmsInHost2) {
-        VmPlacementConfig.priceModeller.set(Mockito.mock(PriceModeller.class));
-        Mockito.when(VmPlacementConfig.priceModeller.get().getCost(host1, vmsInHost1))
+        Mockito.when(priceModeller.getCost(host1, vmsInHost1))
                 .thenReturn(20.0);
-        Mockito.when(VmPlacementConfig.priceModeller.get().getCost(host2, vmsInHost2))
+        Mockito.when(priceModeller.getCost(host2, vmsInHost2))
                 .thenReturn(10.0);
     }
 
-    private ClusterState getTestClusterState() {
+    private ClusterState getTestClusterState(PriceModeller priceModeller) {
         List<Host> hosts = new ArrayList<>();
         hosts.add(host1);
         hosts.add(host2);
@@ -97,7 +100,15 @@ public class ScoreCalculatorPriceTest {
         ClusterState result = new ClusterState();
         result.setHosts(hosts);
         result.setVms(vms);
+        result.setPlacementContext(getPlacementContext(priceModeller));
         return result;
     }
+
+    private PlacementContext getPlacementContext(PriceModeller priceModeller) {
+        ClusterState initialClusterState = new ClusterState();
+        initialClusterState.setVms(new ArrayList<Vm>());
+        initialClusterState.setHosts(new ArrayList<Host>());
+        return new PlacementContext(null, priceModeller, initialClusterState);
+    }
     
 }
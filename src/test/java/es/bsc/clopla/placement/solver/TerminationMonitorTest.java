@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package es.bsc.clopla.placement.solver;
+
+import es.bsc.clopla.domain.ClusterState;
+import es.bsc.clopla.domain.Host;
+import es.bsc.clopla.domain.Vm;
+import es.bsc.clopla.placement.config.Termination;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.optaplanner.core.api.score.Score;
+import org.optaplanner.core.api.score.buildin.bendable.BendableScore;
+import org.optaplanner.core.api.score.buildin.hardmediumsoft.HardMediumSoftScore;
+import org.optaplanner.core.api.solver.Solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author David Ortiz (david.ortiz@bsc.es)
+ */
+public class TerminationMonitorTest {
+
+    private final Host host1 = new Host((long) 1, "1", 4, 4096, 4, false);
+    private final Host host2 = new Host((long) 2, "2", 4, 4096, 4, false);
+
+    @Test
+    public void targetIsNotReachedWhenThereAreUnassignedVms() {
+        Termination termination = new Termination.Builder().feasibleTarget(true).build();
+        assertFalse(TerminationMonitor.isTargetReached(
+                getClusterState(host1, null, getConsolidationScore(0, 0)), termination));
+    }
+
+    @Test
+    public void targetIsNotReachedWhenTheSolutionHasNoScore() {
+        Termination termination = new Termination.Builder().feasibleTarget(true).build();
+        assertFalse(TerminationMonitor.isTargetReached(getClusterState(host1, host2, null), termination));
+    }
+
+    @Test
+    public void feasibleTargetIsReachedWhenTheHardScoreIsNotNegative() {
+        Termination termination = new Termination.Builder().feasibleTarget(true).build();
+        assertTrue(TerminationMonitor.isTargetReached(
+                getClusterState(host1, host2, getConsolidationScore(0, 0)), termination));
+        assertTrue(TerminationMonitor.isTargetReached(
+                getClusterState(host1, host2, HardMediumSoftScore.valueOf(0, -100, 0)), termination));
+    }
+
+    @Test
+    public void feasibleTargetIsNotReachedWhenTheHardScoreIsNegative() {
+        Termination termination = new Termination.Builder().feasibleTarget(true).build();
+        assertFalse(TerminationMonitor.isTargetReached(
+                getClusterState(host1, host1, getConsolidationScore(-1, 0)), termination));
+        assertFalse(TerminationMonitor.isTargetReached(
+                getClusterState(host1, host1, HardMediumSoftScore.valueOf(-1, 0, 0)), termination));
+    }
+
+    @Test
+    public void maxMigrationsTargetReadsTheMigrationsFromTheLastSoftLevel() {
+        ClusterState solution = getClusterState(host1, host2, getConsolidationScore(0, 1));
+        assertFalse(TerminationMonitor.isTargetReached(solution,
+                new Termination.Builder().maxMigrationsTarget(0).build()));
+        assertTrue(TerminationMonitor.isTargetReached(solution,
+                new Termination.Builder().maxMigrationsTarget(1).build()));
+
+        solution.setScore(HardMediumSoftScore.valueOf(0, -100, 1));
+        assertFalse(TerminationMonitor.isTargetReached(solution,
+                new Termination.Builder().maxMigrationsTarget(0).build()));
+        assertTrue(TerminationMonitor.isTargetReached(solution,
+                new Termination.Builder().maxMigrationsTarget(1).build()));
+    }
+
+    @Test
+    public void unimprovedTimeoutStopsTheSolver() throws InterruptedException {
+        Solver solver = Mockito.mock(Solver.class);
+        TerminationMonitor monitor = TerminationMonitor.monitor(
+                solver, new Termination.Builder().unimprovedTimeLimitMillis(10).build());
+        monitor.restartUnimprovedTimeout();
+        Thread.sleep(500);
+        Mockito.verify(solver).terminateEarly();
+    }
+
+    @Test
+    public void unimprovedTimeoutIsCancelledWhenTheSolverStops() throws InterruptedException {
+        Solver solver = Mockito.mock(Solver.class);
+        TerminationMonitor monitor = TerminationMonitor.monitor(
+                solver, new Termination.Builder().unimprovedTimeLimitMillis(100).build());
+        monitor.restartUnimprovedTimeout();
+        VmPlacementSolver.solve(solver);
+        Thread.sleep(500);
+        Mockito.verify(solver, Mockito.never()).terminateEarly();
+    }
+
+    private ClusterState getClusterState(Host hostOfVm1, Host hostOfVm2, Score score) {
+        Vm vm1 = new Vm.Builder((long) 1, 1, 1024, 1).build();
+        Vm vm2 = new Vm.Builder((long) 2, 1, 1024, 1).build();
+        vm1.setHost(hostOfVm1);
+        vm2.setHost(hostOfVm2);
+        ClusterState result = new ClusterState();
+        result.setHosts(Arrays.asList(host1, host2));
+        List<Vm> vms = new ArrayList<>();
+        vms.add(vm1);
+        vms.add(vm2);
+        result.setVms(vms);
+        result.setScore(score);
+        return result;
+    }
+
+    /**
+     * Returns a score with the levels of the consolidation policy. The migrations are its last soft level.
+     */
+    private BendableScore getConsolidationScore(int hardScore, int vmMigrationsNeeded) {
+        return BendableScore.valueOf(new int[] { hardScore }, new int[] { 0, 0, 0, vmMigrationsNeeded });
+    }
+
+}
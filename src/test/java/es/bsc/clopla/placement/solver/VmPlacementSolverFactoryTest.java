@@ -19,19 +19,41 @@
 
 package es.bsc.clopla.placement.solver;
 
+import es.bsc.clopla.domain.ClusterState;
 import es.bsc.clopla.domain.ConstructionHeuristic;
+import es.bsc.clopla.domain.Vm;
+import es.bsc.clopla.domain.filters.CapacityChangeMoveFilter;
+import es.bsc.clopla.domain.filters.CapacityPillarSwapMoveFilter;
+import es.bsc.clopla.domain.filters.CapacitySwapMoveFilter;
 import es.bsc.clopla.placement.config.Policy;
+import es.bsc.clopla.placement.config.Termination;
 import es.bsc.clopla.placement.config.VmPlacementConfig;
+import es.bsc.clopla.placement.config.localsearch.LocalSearch;
+import es.bsc.clopla.placement.config.localsearch.MoveType;
 import es.bsc.clopla.placement.config.localsearch.SimulatedAnnealing;
+import es.bsc.clopla.placement.moves.AppChangeMoveListFactory;
+import es.bsc.clopla.placement.scorecalculators.IncrementalScoreCalculatorConsolidation;
 import es.bsc.clopla.placement.scorecalculators.ScoreCalculatorDistribution;
 import org.junit.Test;
 import org.optaplanner.core.config.constructionheuristic.ConstructionHeuristicSolverPhaseConfig;
+import org.optaplanner.core.config.heuristic.selector.move.MoveSelectorConfig;
+import org.optaplanner.core.config.heuristic.selector.move.composite.UnionMoveSelectorConfig;
+import org.optaplanner.core.config.heuristic.selector.move.factory.MoveListFactoryConfig;
+import org.optaplanner.core.config.heuristic.selector.move.generic.ChangeMoveSelectorConfig;
+import org.optaplanner.core.config.heuristic.selector.move.generic.SwapMoveSelectorConfig;
 import org.optaplanner.core.config.localsearch.LocalSearchSolverPhaseConfig;
 import org.optaplanner.core.config.localsearch.decider.acceptor.AcceptorConfig;
 import org.optaplanner.core.config.localsearch.decider.forager.ForagerConfig;
 import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.config.termination.TerminationConfig;
+
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author David Ortiz (david.ortiz@bsc.es)
@@ -67,7 +89,226 @@ public class VmPlacementSolverFactoryTest {
         assertEquals(1, (long) foragerConfig.getAcceptedCountLimit());
         
     }
+
+    @Test
+    public void getSolverFactoryConfiguresTheDomainWithoutXml() {
+        SolverConfig solverConfig = new VmPlacementSolverFactory(getTestVmPlacementConfig()).getSolverFactory()
+                .getSolverConfig();
+        assertEquals(ClusterState.class, solverConfig.getSolutionClass());
+        assertEquals(1, solverConfig.getPlanningEntityClassSet().size());
+        assertTrue(solverConfig.getPlanningEntityClassSet().contains(Vm.class));
+    }
+
+    @Test
+    public void getSolverFactoryOnlyAddsTheLocalSearchWhenThereIsNoConstructionHeuristic() {
+        VmPlacementConfig vmPlacementConfig = new VmPlacementConfig.Builder(
+                Policy.DISTRIBUTION,
+                60,
+                null,
+                new SimulatedAnnealing(10, 20),
+                false).build();
+        SolverConfig solverConfig = new VmPlacementSolverFactory(vmPlacementConfig).getSolverFactory()
+                .getSolverConfig();
+        assertEquals(1, solverConfig.getSolverPhaseConfigList().size());
+        assertTrue(solverConfig.getSolverPhaseConfigList().get(0) instanceof LocalSearchSolverPhaseConfig);
+    }
+
+    @Test
+    public void getSolverFactoryUsesIncrementalScoreCalculatorWhenRequested() {
+        VmPlacementConfig vmPlacementConfig = new VmPlacementConfig.Builder(
+                Policy.CONSOLIDATION,
+                60,
+                ConstructionHeuristic.FIRST_FIT_DECREASING,
+                new SimulatedAnnealing(10, 20),
+                false)
+                .incrementalScoreCalculation(true)
+                .build();
+        SolverConfig solverConfig = new VmPlacementSolverFactory(vmPlacementConfig).getSolverFactory()
+                .getSolverConfig();
+        assertNull(solverConfig.getScoreDirectorFactoryConfig().getSimpleScoreCalculatorClass());
+        assertEquals(IncrementalScoreCalculatorConsolidation.class,
+                solverConfig.getScoreDirectorFactoryConfig().getIncrementalScoreCalculatorClass());
+    }
     
+    @Test
+    public void getSolverFactoryReusesTheFactoryOfAnEquivalentConfig() {
+        assertSame(new VmPlacementSolverFactory(getTestVmPlacementConfig()).getSolverFactory(),
+                new VmPlacementSolverFactory(getTestVmPlacementConfig()).getSolverFactory());
+    }
+
+    @Test
+    public void getSolverFactoryDoesNotReuseTheFactoryOfADifferentConfig() {
+        VmPlacementConfig vmPlacementConfig = new VmPlacementConfig.Builder(
+                Policy.DISTRIBUTION,
+                60,
+                ConstructionHeuristic.FIRST_FIT_DECREASING,
+                new SimulatedAnnealing(10, 30),
+                false).build();
+        assertNotSame(new VmPlacementSolverFactory(getTestVmPlacementConfig()).getSolverFactory(),
+                new VmPlacementSolverFactory(vmPlacementConfig).getSolverFactory());
+    }
+
+    @Test
+    public void getSolverFactoryDoesNotReuseTheFactoryOfALocalSearchThatDoesNotDefineItsEquality() {
+        VmPlacementConfig vmPlacementConfig1 = new VmPlacementConfig.Builder(
+                Policy.DISTRIBUTION, 60, ConstructionHeuristic.FIRST_FIT_DECREASING, new TunedLateAcceptance(100),
+                false).build();
+        VmPlacementConfig vmPlacementConfig2 = new VmPlacementConfig.Builder(
+                Policy.DISTRIBUTION, 60, ConstructionHeuristic.FIRST_FIT_DECREASING, new TunedLateAcceptance(200),
+                false).build();
+        assertNotSame(new VmPlacementSolverFactory(vmPlacementConfig1).getSolverFactory(),
+                new VmPlacementSolverFactory(vmPlacementConfig2).getSolverFactory());
+        assertSame(new VmPlacementSolverFactory(vmPlacementConfig1).getSolverFactory(),
+                new VmPlacementSolverFactory(vmPlacementConfig1).getSolverFactory());
+    }
+
+    @Test
+    public void getSolverFactoryConfiguresTheTermination() {
+        Termination termination = new Termination.Builder()
+                .timeLimitMillis(250)
+                .stepLimit(1000)
+                .unimprovedStepLimit(100)
+                .compositionStyle(Termination.CompositionStyle.AND)
+                .build();
+        VmPlacementConfig vmPlacementConfig = new VmPlacementConfig.Builder(
+                Policy.DISTRIBUTION,
+                60,
+                ConstructionHeuristic.FIRST_FIT_DECREASING,
+                new SimulatedAnnealing(10, 20),
+                false)
+                .termination(termination)
+                .build();
+        TerminationConfig terminationConfig = new VmPlacementSolverFactory(vmPlacementConfig).getSolverFactory()
+                .getSolverConfig().getTerminationConfig();
+        assertNull(terminationConfig.getMaximumSecondsSpend()); // The limit in millis replaces the one in seconds
+        assertEquals(250, (long) terminationConfig.getMaximumTimeMillisSpend());
+        assertEquals(1000, (int) terminationConfig.getMaximumStepCount());
+        assertEquals(100, (int) terminationConfig.getMaximumUnimprovedStepCount());
+        assertEquals(TerminationConfig.TerminationCompositionStyle.AND,
+                terminationConfig.getTerminationCompositionStyle());
+    }
+
+    @Test
+    public void getSolverFactoryKeepsTheTimeLimitInSecondsWhenThereIsNoLimitInMillis() {
+        VmPlacementConfig vmPlacementConfig = new VmPlacementConfig.Builder(
+                Policy.DISTRIBUTION,
+                60,
+                ConstructionHeuristic.FIRST_FIT_DECREASING,
+                new SimulatedAnnealing(10, 20),
+                false)
+                .termination(new Termination.Builder().unimprovedStepLimit(100).build())
+                .build();
+        TerminationConfig terminationConfig = new VmPlacementSolverFactory(vmPlacementConfig).getSolverFactory()
+                .getSolverConfig().getTerminationConfig();
+        assertEquals(60, (long) terminationConfig.getMaximumSecondsSpend());
+        assertNull(terminationConfig.getMaximumTimeMillisSpend());
+    }
+
+    @Test
+    public void getSolverFactoryDoesNotReuseTheFactoryOfADifferentTermination() {
+        VmPlacementConfig vmPlacementConfig = new VmPlacementConfig.Builder(
+                Policy.DISTRIBUTION,
+                60,
+                ConstructionHeuristic.FIRST_FIT_DECREASING,
+                new SimulatedAnnealing(10, 20),
+                false)
+                .termination(new Termination.Builder().timeLimitMillis(250).build())
+                .build();
+        assertNotSame(new VmPlacementSolverFactory(getTestVmPlacementConfig()).getSolverFactory(),
+                new VmPlacementSolverFactory(vmPlacementConfig).getSolverFactory());
+    }
+
+    @Test
+    public void getSolverFactoryUsesChangeAndSwapMovesWhenTheyAreNotSpecified() {
+        SolverConfig solverConfig = new VmPlacementSolverFactory(getTestVmPlacementConfig()).getSolverFactory()
+                .getSolverConfig();
+        UnionMoveSelectorConfig unionConfig =
+                (UnionMoveSelectorConfig) getLocalSearchPhaseConfig(solverConfig).getMoveSelectorConfig();
+        List<MoveSelectorConfig> moveSelectorConfigs = unionConfig.getMoveSelectorConfigList();
+        assertEquals(2, moveSelectorConfigs.size());
+        assertTrue(moveSelectorConfigs.get(0) instanceof ChangeMoveSelectorConfig);
+        assertTrue(moveSelectorConfigs.get(1) instanceof SwapMoveSelectorConfig);
+    }
+
+    @Test
+    public void getSolverFactoryFiltersChangeAndSwapMovesByCapacity() {
+        SolverConfig solverConfig = new VmPlacementSolverFactory(getTestVmPlacementConfig()).getSolverFactory()
+                .getSolverConfig();
+        List<MoveSelectorConfig> moveSelectorConfigs = ((UnionMoveSelectorConfig)
+                getLocalSearchPhaseConfig(solverConfig).getMoveSelectorConfig()).getMoveSelectorConfigList();
+        assertTrue(moveSelectorConfigs.get(0).getFilterClassList().contains(CapacityChangeMoveFilter.class));
+        assertTrue(moveSelectorConfigs.get(1).getFilterClassList().contains(CapacitySwapMoveFilter.class));
+    }
+
+    @Test
+    public void getSolverFactoryFiltersPillarSwapMovesByCapacity() {
+        SolverConfig solverConfig = new VmPlacementSolverFactory(getTestVmPlacementConfig(MoveType.PILLAR_SWAP))
+                .getSolverFactory().getSolverConfig();
+        assertTrue(getLocalSearchPhaseConfig(solverConfig).getMoveSelectorConfig().getFilterClassList()
+                .contains(CapacityPillarSwapMoveFilter.class));
+    }
+
+    @Test
+    public void getSolverFactoryConfiguresASingleTypeOfMove() {
+        SolverConfig solverConfig = new VmPlacementSolverFactory(getTestVmPlacementConfig(MoveType.SWAP))
+                .getSolverFactory().getSolverConfig();
+        assertTrue(getLocalSearchPhaseConfig(solverConfig).getMoveSelectorConfig() instanceof SwapMoveSelectorConfig);
+    }
+
+    @Test
+    public void getSolverFactoryCombinesSeveralTypesOfMoves() {
+        SolverConfig solverConfig = new VmPlacementSolverFactory(
+                getTestVmPlacementConfig(MoveType.SWAP, MoveType.APP_CHANGE)).getSolverFactory().getSolverConfig();
+        UnionMoveSelectorConfig unionConfig =
+                (UnionMoveSelectorConfig) getLocalSearchPhaseConfig(solverConfig).getMoveSelectorConfig();
+        List<MoveSelectorConfig> moveSelectorConfigs = unionConfig.getMoveSelectorConfigList();
+        assertEquals(2, moveSelectorConfigs.size());
+        assertTrue(moveSelectorConfigs.get(0) instanceof SwapMoveSelectorConfig);
+        assertEquals(AppChangeMoveListFactory.class,
+                ((MoveListFactoryConfig) moveSelectorConfigs.get(1)).getMoveListFactoryClass());
+    }
+
+    @Test
+    public void getSolverFactoryDoesNotReuseTheFactoryOfDifferentMoves() {
+        assertNotSame(new VmPlacementSolverFactory(getTestVmPlacementConfig(MoveType.SWAP)).getSolverFactory(),
+                new VmPlacementSolverFactory(getTestVmPlacementConfig(MoveType.CHANGE)).getSolverFactory());
+    }
+
+    private LocalSearchSolverPhaseConfig getLocalSearchPhaseConfig(SolverConfig solverConfig) {
+        return (LocalSearchSolverPhaseConfig) solverConfig.getSolverPhaseConfigList().get(1);
+    }
+
+    /**
+     * Local search defined by a user, with a parameter that LocalSearch does not know about.
+     */
+    private static class TunedLateAcceptance extends LocalSearch {
+
+        private final int lateAcceptanceSize;
+
+        public TunedLateAcceptance(int lateAcceptanceSize) {
+            this.lateAcceptanceSize = lateAcceptanceSize;
+        }
+
+        @Override
+        public AcceptorConfig getAcceptorConfig() {
+            AcceptorConfig result = new AcceptorConfig();
+            result.setLateAcceptanceSize(lateAcceptanceSize);
+            return result;
+        }
+
+    }
+
+    private VmPlacementConfig getTestVmPlacementConfig(MoveType... moveTypes) {
+        return new VmPlacementConfig.Builder(
+                Policy.DISTRIBUTION,
+                60,
+                ConstructionHeuristic.FIRST_FIT_DECREASING,
+                new SimulatedAnnealing(10, 20),
+                false)
+                .moveTypes(moveTypes)
+                .build();
+    }
+
     private VmPlacementConfig getTestVmPlacementConfig() {
         return new VmPlacementConfig.Builder(
                 Policy.DISTRIBUTION,